@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Measures how long the application context takes to refresh with the plain JVM, with the
+# AOT-generated context and with AOT plus an AppCDS archive trained on the same jar.
+# Every run stops right after the context refresh (spring.context.exit=onRefresh), so no
+# port is bound and Person Service is never called.
+#
+# usage: measure-startup.sh <thin jar built with -Pfast-startup> [runs]
+set -euo pipefail
+
+jar="$1"
+runs="${2:-5}"
+archive="$(dirname "$jar")/demography-service.jsa"
+
+common=(-Dspring.context.exit=onRefresh -Dspring.profiles.active=fast-startup -Dserver.ssl.enabled=false)
+
+elapsed_ms() {
+    local start end
+    start=$(date +%s%N)
+    java "$@" -jar "$jar" > /dev/null 2>&1
+    end=$(date +%s%N)
+    echo $(((end - start) / 1000000))
+}
+
+measure() {
+    local label="$1"
+    shift
+    local total=0 best=0 ms
+    elapsed_ms "$@" > /dev/null # warm the page cache
+    for ((i = 0; i < runs; i++)); do
+        ms=$(elapsed_ms "$@")
+        total=$((total + ms))
+        if ((best == 0 || ms < best)); then
+            best=$ms
+        fi
+    done
+    printf '%-12s mean %6d ms   best %6d ms   (%d runs)\n' "$label" $((total / runs)) "$best" "$runs"
+}
+
+rm -f "$archive"
+java -XX:ArchiveClassesAtExit="$archive" -Dspring.aot.enabled=true "${common[@]}" -jar "$jar" > /dev/null 2>&1
+
+echo "Context refresh time of $(basename "$jar")"
+measure "jvm" "${common[@]}"
+measure "aot" -Dspring.aot.enabled=true "${common[@]}"
+measure "aot+cds" -XX:SharedArchiveFile="$archive" -Dspring.aot.enabled=true "${common[@]}"
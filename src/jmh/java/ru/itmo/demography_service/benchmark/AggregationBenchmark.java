@@ -0,0 +1,83 @@
+package ru.itmo.demography_service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.service.StatsCalculator;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the per-version count cube and answering stats from it, over populations up to
+ * 50M persons. Attributes are pre-generated as ordinal columns so only aggregation is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AggregationBenchmark {
+
+    private static final Color[] COLORS = Color.values();
+    private static final Country[] COUNTRIES = Country.values();
+
+    @Param({"10000", "1000000", "10000000", "50000000"})
+    private int populationSize;
+
+    @Param({"0.0", "0.1"})
+    private double nullRatio;
+
+    private byte[] hairColors;
+    private byte[] eyeColors;
+    private byte[] nationalities;
+    private PersonCountCube cube;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[][] ordinals = new SyntheticPopulation(42, nullRatio).ordinals(populationSize);
+        hairColors = ordinals[0];
+        eyeColors = ordinals[1];
+        nationalities = ordinals[2];
+        cube = buildCube();
+    }
+
+    @Benchmark
+    public PersonCountCube buildCube() {
+        PersonCountCube result = new PersonCountCube();
+        for (int i = 0; i < hairColors.length; i++) {
+            result.add(value(COUNTRIES, nationalities[i]), value(COLORS, hairColors[i]), value(COLORS, eyeColors[i]));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void answerAllStats(Blackhole blackhole) {
+        for (Color color : COLORS) {
+            blackhole.consume(StatsCalculator.hairColorStats(cube, color));
+        }
+        for (Country country : COUNTRIES) {
+            for (Color color : COLORS) {
+                blackhole.consume(StatsCalculator.nationalityEyeColorStats(cube, country, color));
+            }
+        }
+    }
+
+    private static <E> E value(E[] values, byte ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+}
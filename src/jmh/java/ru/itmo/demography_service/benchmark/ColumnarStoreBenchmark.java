@@ -0,0 +1,71 @@
+package ru.itmo.demography_service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itmo.demography_service.aggregation.PersonColumns;
+import ru.itmo.demography_service.aggregation.PersonColumnsBuilder;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.PersonStreamReader;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full scans over the columnar store: per-attribute histograms, a two-column filter and
+ * rebuilding the count cube from the columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ColumnarStoreBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int populationSize;
+
+    @Param({"0.0", "0.1"})
+    private double nullRatio;
+
+    private PersonColumns columns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(false));
+        try (InputStream json = new SyntheticPopulation(42, nullRatio).jsonStream(populationSize)) {
+            PersonStreamReader.read(json, builder);
+        }
+        columns = builder.build().columns();
+    }
+
+    @Benchmark
+    public long[] hairColorHistogram() {
+        return columns.hairColorHistogram();
+    }
+
+    @Benchmark
+    public long countByNationalityAndEyeColor() {
+        return columns.countByNationalityAndEyeColor(Country.SPAIN, Color.GREEN);
+    }
+
+    @Benchmark
+    public PersonCountCube rebuildCube() {
+        return columns.toCube();
+    }
+}
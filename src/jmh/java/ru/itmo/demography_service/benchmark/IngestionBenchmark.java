@@ -0,0 +1,78 @@
+package ru.itmo.demography_service.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itmo.demography_service.aggregation.PersonColumnsBuilder;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.PersonStreamReader;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding the {@code /persons} payload: full {@code PersonDTO} databinding as the Feign decoder
+ * does it, against the streaming reader feeding a {@link PopulationBuilder}, with and without
+ * the columnar store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class IngestionBenchmark {
+
+    private static final TypeReference<List<PersonDTO>> PERSON_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10000", "100000", "1000000"})
+    private int populationSize;
+
+    @Param({"0.0", "0.1"})
+    private double nullRatio;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = new SyntheticPopulation(42, nullRatio).json(populationSize);
+    }
+
+    @Benchmark
+    public List<PersonDTO> databindPersonList() throws IOException {
+        return objectMapper.readValue(payload, PERSON_LIST);
+    }
+
+    @Benchmark
+    public PopulationBuilder streamIntoBuilder() throws IOException {
+        PopulationBuilder builder = new PopulationBuilder();
+        PersonStreamReader.read(new ByteArrayInputStream(payload), builder);
+        return builder;
+    }
+
+    @Benchmark
+    public PopulationBuilder streamIntoColumnarBuilder() throws IOException {
+        PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(false));
+        PersonStreamReader.read(new ByteArrayInputStream(payload), builder);
+        return builder;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.itmo.demography_service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.PersonStreamReader;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end streaming ingestion of populations too large to hold as a payload. The JSON is
+ * generated on the fly, so the numbers include generation cost and are an upper bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class LargeIngestionBenchmark {
+
+    @Param({"10000000", "50000000"})
+    private long populationSize;
+
+    @Param({"0.0", "0.1"})
+    private double nullRatio;
+
+    @Benchmark
+    public PopulationBuilder streamIntoBuilder() throws IOException {
+        PopulationBuilder builder = new PopulationBuilder();
+        try (InputStream body = new SyntheticPopulation(42, nullRatio).jsonStream(populationSize)) {
+            PersonStreamReader.read(body, builder);
+        }
+        return builder;
+    }
+}
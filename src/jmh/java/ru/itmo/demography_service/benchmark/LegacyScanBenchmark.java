@@ -0,0 +1,81 @@
+package ru.itmo.demography_service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The list-based work {@code DemographyService} used to do per request: the null scan from
+ * {@code fetchAllPersons()} and the stream filters behind both stats, next to building the cube
+ * from the same list. Capped at 5M persons, which is what a 4 GB heap holds as {@code PersonDTO}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LegacyScanBenchmark {
+
+    @Param({"10000", "1000000", "5000000"})
+    private int populationSize;
+
+    @Param({"0.0", "0.1"})
+    private double nullRatio;
+
+    private List<PersonDTO> persons;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        persons = new SyntheticPopulation(42, nullRatio).persons(populationSize);
+    }
+
+    @Benchmark
+    public void nullScan(Blackhole blackhole) {
+        blackhole.consume(persons.stream().filter(person -> person.nationality() == null).count());
+        blackhole.consume(persons.stream().filter(person -> person.hairColor() == null).count());
+        blackhole.consume(persons.stream().filter(person -> person.eyeColor() == null).count());
+    }
+
+    @Benchmark
+    public long hairColorScan() {
+        return persons.stream()
+                .filter(person -> Objects.equals(Color.BLUE, person.hairColor()))
+                .count();
+    }
+
+    @Benchmark
+    public long nationalityEyeColorScan() {
+        List<PersonDTO> nationalityPersons = persons.stream()
+                .filter(person -> Objects.equals(Country.SPAIN, person.nationality()))
+                .toList();
+
+        return nationalityPersons.stream()
+                .filter(person -> Objects.equals(Color.GREEN, person.eyeColor()))
+                .count();
+    }
+
+    @Benchmark
+    public PersonCountCube cubeFromList() {
+        return PersonCountCube.of(persons);
+    }
+}
@@ -0,0 +1,257 @@
+package ru.itmo.demography_service.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.itmo.demography_service.DemographyServiceApplication;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.support.PersonServiceStandIn;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Closed-loop load generator for the {@code DemographyController} endpoints. Unless
+ * {@code load.target-url} points at a running instance, it starts a {@link PersonServiceStandIn}
+ * and the application on a random port, without TLS, against that stand-in. Each client thread
+ * sends the next request as soon as the previous one completed, so latencies under saturation
+ * are understated (coordinated omission); compare runs at the same client count.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=ru.itmo.demography_service.benchmark.LoadTest \
+ *     -Dload.clients=64 -Dload.population-size=1000000 -Dload.slo.p99-ms=25
+ * </pre>
+ *
+ * Prints throughput and p50 / p99 / p99.9 per endpoint and exits with status 1 when any
+ * endpoint misses a latency SLO or answered with an error.
+ */
+public final class LoadTest {
+
+    private static final int POPULATION_SIZE = Integer.getInteger("load.population-size", 100_000);
+    private static final double NULL_RATIO = Double.parseDouble(System.getProperty("load.null-ratio", "0.1"));
+    private static final long SEED = Long.getLong("load.seed", 42);
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(Long.getLong("load.upstream-latency-ms", 20));
+    private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-s", 10));
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("load.duration-s", 30));
+    private static final double SLO_P50_MS = Double.parseDouble(System.getProperty("load.slo.p50-ms", "5"));
+    private static final double SLO_P99_MS = Double.parseDouble(System.getProperty("load.slo.p99-ms", "50"));
+    private static final double SLO_P999_MS = Double.parseDouble(System.getProperty("load.slo.p999-ms", "200"));
+
+    private static final Color[] COLORS = Color.values();
+    private static final Country[] COUNTRIES = Country.values();
+
+    private LoadTest() {
+    }
+
+    private record Endpoint(String name, Function<SplittableRandom, HttpRequest.Builder> request) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String targetUrl = System.getProperty("load.target-url");
+        PersonServiceStandIn personService = null;
+        ConfigurableApplicationContext application = null;
+
+        if (targetUrl == null) {
+            personService = new PersonServiceStandIn(0, POPULATION_SIZE, SEED, NULL_RATIO, UPSTREAM_LATENCY);
+            application = SpringApplication.run(DemographyServiceApplication.class,
+                    "--server.port=0",
+                    "--server.ssl.enabled=false",
+                    "--person-service.url=" + personService.url(),
+                    "--logging.level.ru.itmo.demography_service=WARN");
+            targetUrl = "http://localhost:"
+                    + ((ServletWebServerApplicationContext) application).getWebServer().getPort();
+        }
+
+        boolean passed;
+        try {
+            passed = run(URI.create(targetUrl + "/demography"));
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (personService != null) {
+                personService.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean run(URI base) throws Exception {
+        List<Endpoint> endpoints = endpoints(base);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        System.out.printf("Target %s, %d clients, warmup %ds, measurement %ds%n",
+                base, CLIENTS, WARMUP.toSeconds(), MEASUREMENT.toSeconds());
+
+        drive(client, endpoints, WARMUP);
+        Recorder[][] recorders = drive(client, endpoints, MEASUREMENT);
+
+        System.out.printf("%n%-30s %10s %7s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        boolean passed = true;
+        Recorder total = new Recorder();
+        for (int e = 0; e < endpoints.size(); e++) {
+            Recorder merged = new Recorder();
+            for (Recorder[] perClient : recorders) {
+                merged.addAll(perClient[e]);
+            }
+            total.addAll(merged);
+            passed &= report(endpoints.get(e).name(), merged);
+        }
+        passed &= report("all", total);
+        System.out.printf("%nSLO p50 <= %.1f ms, p99 <= %.1f ms, p99.9 <= %.1f ms: %s%n",
+                SLO_P50_MS, SLO_P99_MS, SLO_P999_MS, passed ? "PASSED" : "FAILED");
+        return passed;
+    }
+
+    private static Recorder[][] drive(HttpClient client, List<Endpoint> endpoints, Duration duration)
+            throws Exception {
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Recorder[]>> workers = new ArrayList<>(CLIENTS);
+            for (int c = 0; c < CLIENTS; c++) {
+                SplittableRandom random = new SplittableRandom(SEED + c);
+                workers.add(executor.submit(() -> {
+                    Recorder[] recorders = new Recorder[endpoints.size()];
+                    Arrays.setAll(recorders, i -> new Recorder());
+                    while (System.nanoTime() < deadline) {
+                        int e = random.nextInt(endpoints.size());
+                        HttpRequest request = endpoints.get(e).request().apply(random)
+                                .timeout(Duration.ofSeconds(30))
+                                .build();
+                        long startedAt = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            recorders[e].record(System.nanoTime() - startedAt, status < 400);
+                        } catch (IOException ex) {
+                            recorders[e].record(System.nanoTime() - startedAt, false);
+                        }
+                    }
+                    return recorders;
+                }));
+            }
+
+            Recorder[][] results = new Recorder[CLIENTS][];
+            for (int c = 0; c < CLIENTS; c++) {
+                results[c] = workers.get(c).get();
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean report(String name, Recorder recorder) {
+        double p50 = recorder.percentileMillis(0.5);
+        double p99 = recorder.percentileMillis(0.99);
+        double p999 = recorder.percentileMillis(0.999);
+        boolean passed = recorder.errors == 0 && p50 <= SLO_P50_MS && p99 <= SLO_P99_MS && p999 <= SLO_P999_MS;
+
+        System.out.printf("%-30s %10d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%s%n",
+                name, recorder.size, recorder.errors,
+                recorder.size / (MEASUREMENT.toNanos() / 1e9),
+                p50, p99, p999, recorder.percentileMillis(1.0),
+                passed ? "" : "  SLO MISSED");
+        return passed;
+    }
+
+    private static List<Endpoint> endpoints(URI base) {
+        return List.of(
+                new Endpoint("hair-color-percentage", random -> get(base,
+                        "/hair-color/" + COLORS[random.nextInt(COLORS.length)] + "/percentage")),
+                new Endpoint("nationality-eye-color", random -> get(base,
+                        "/nationality/" + COUNTRIES[random.nextInt(COUNTRIES.length)]
+                                + "/eye-color/" + COLORS[random.nextInt(COLORS.length)])),
+                new Endpoint("hair-color-distribution", random -> get(base, "/hair-color/distribution")),
+                new Endpoint("nationality-eye-color-matrix", random -> get(base, "/nationality/eye-color/matrix")),
+                new Endpoint("stats-batch", random -> post(base, "/stats/batch", """
+                        {"queries": [
+                            {"type": "HAIR_COLOR_PERCENTAGE", "hairColor": "%s"},
+                            {"type": "NATIONALITY_EYE_COLOR", "nationality": "%s", "eyeColor": "%s"}
+                        ]}""".formatted(COLORS[random.nextInt(COLORS.length)],
+                        COUNTRIES[random.nextInt(COUNTRIES.length)], COLORS[random.nextInt(COLORS.length)]))),
+                new Endpoint("filter-query", random -> post(base, "/query", """
+                        {"filter": {"allOf": [
+                            {"attribute": "NATIONALITY", "in": ["%s"]},
+                            {"attribute": "HAIR_COLOR", "notIn": ["%s"]}
+                        ]}}""".formatted(COUNTRIES[random.nextInt(COUNTRIES.length)],
+                        COLORS[random.nextInt(COLORS.length)])))
+        );
+    }
+
+    private static HttpRequest.Builder get(URI base, String path) {
+        return HttpRequest.newBuilder(URI.create(base + path)).GET();
+    }
+
+    private static HttpRequest.Builder post(URI base, String path, String json) {
+        return HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    /**
+     * Raw latencies of one endpoint, kept exactly rather than bucketed so the tail
+     * percentiles are not distorted by histogram resolution.
+     */
+    private static final class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+        private boolean sorted;
+
+        void record(long nanos, boolean success) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size + (size >> 1));
+            }
+            latencies[size++] = nanos;
+            if (!success) {
+                errors++;
+            }
+            sorted = false;
+        }
+
+        void addAll(Recorder other) {
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, size + other.size);
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            errors += other.errors;
+            sorted = false;
+        }
+
+        double percentileMillis(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            if (!sorted) {
+                Arrays.sort(latencies, 0, size);
+                sorted = true;
+            }
+            int rank = (int) Math.ceil(percentile * size) - 1;
+            return latencies[Math.max(0, Math.min(rank, size - 1))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.itmo.demography_service.aggregation;
+
+import org.roaringbitmap.RoaringBitmap;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.PersonAttribute;
+
+import java.util.Arrays;
+
+/**
+ * One compressed bitmap of person positions per attribute value, {@code null} included.
+ * Bitmaps returned by this index are shared between readers and must not be modified;
+ * combine them with the static {@link RoaringBitmap} operations, which allocate new ones.
+ */
+public final class PersonBitmapIndex {
+
+    private static final PersonAttribute[] ATTRIBUTES = PersonAttribute.values();
+
+    private final int size;
+    private final RoaringBitmap all;
+    private final RoaringBitmap[][] bitmaps;
+
+    private PersonBitmapIndex(int size, RoaringBitmap[][] bitmaps) {
+        this.size = size;
+        this.bitmaps = bitmaps;
+        this.all = new RoaringBitmap();
+        this.all.add(0L, (long) size);
+    }
+
+    public static PersonBitmapIndex of(PersonColumns columns) {
+        RoaringBitmap[][] empty = new RoaringBitmap[ATTRIBUTES.length][];
+        for (PersonAttribute attribute : ATTRIBUTES) {
+            empty[attribute.ordinal()] = new RoaringBitmap[buckets(attribute)];
+            Arrays.fill(empty[attribute.ordinal()], new RoaringBitmap());
+        }
+        return new PersonBitmapIndex(0, empty).extend(columns);
+    }
+
+    /**
+     * Index over {@code columns}, which must hold the persons this index was built from
+     * followed by any number of appended ones. Only the appended positions are added: bitmaps
+     * of values no appended person has are shared with this index, the others are copied
+     * before the new positions go in.
+     */
+    public PersonBitmapIndex extend(PersonColumns columns) {
+        if (columns.size() < size) {
+            throw new IllegalArgumentException(
+                    "Columns of " + columns.size() + " persons cannot extend an index of " + size);
+        }
+
+        RoaringBitmap[][] extended = new RoaringBitmap[ATTRIBUTES.length][];
+        for (PersonAttribute attribute : ATTRIBUTES) {
+            RoaringBitmap[] values = bitmaps[attribute.ordinal()].clone();
+            boolean[] copied = new boolean[values.length];
+
+            byte[] column = columns.column(attribute);
+            for (int person = size; person < columns.size(); person++) {
+                int value = column[person];
+                if (!copied[value]) {
+                    values[value] = values[value].clone();
+                    copied[value] = true;
+                }
+                values[value].add(person);
+            }
+            for (int value = 0; value < values.length; value++) {
+                if (copied[value]) {
+                    values[value].runOptimize();
+                }
+            }
+            extended[attribute.ordinal()] = values;
+        }
+
+        return new PersonBitmapIndex(columns.size(), extended);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public RoaringBitmap all() {
+        return all;
+    }
+
+    /**
+     * Persons whose {@code attribute} equals {@code value}; {@code null} selects persons
+     * without the attribute.
+     */
+    public RoaringBitmap matching(PersonAttribute attribute, Enum<?> value) {
+        int ordinal = value == null ? buckets(attribute) - 1 : value.ordinal();
+        return bitmaps[attribute.ordinal()][ordinal];
+    }
+
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (RoaringBitmap[] values : bitmaps) {
+            for (RoaringBitmap bitmap : values) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    public static Class<? extends Enum<?>> valueType(PersonAttribute attribute) {
+        return attribute == PersonAttribute.NATIONALITY ? Country.class : Color.class;
+    }
+
+    private static int buckets(PersonAttribute attribute) {
+        return attribute == PersonAttribute.NATIONALITY
+                ? PersonCountCube.NATIONALITY_BUCKETS
+                : PersonCountCube.COLOR_BUCKETS;
+    }
+}
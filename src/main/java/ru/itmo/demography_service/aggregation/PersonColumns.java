@@ -0,0 +1,184 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.PersonAttribute;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static ru.itmo.demography_service.client.PersonFields.UNKNOWN;
+
+/**
+ * Immutable column-per-attribute copy of the population. Enum attributes are stored as one
+ * ordinal byte per person, with the same trailing {@code null} bucket as {@link PersonCountCube},
+ * so every ordinal is a valid histogram index and scans need no branches. Height and weight
+ * columns are only present when the store was built with measurements.
+ * <p>
+ * The backing arrays may be longer than {@link #size()}. Readers never look past the size,
+ * so the first {@link #toBuilder()} takes the arrays over and appends into the spare capacity
+ * in place; later builders from the same columns get copies.
+ */
+public final class PersonColumns {
+
+    public static final byte NULL_COLOR = (byte) (PersonCountCube.COLOR_BUCKETS - 1);
+    public static final byte NULL_NATIONALITY = (byte) (PersonCountCube.NATIONALITY_BUCKETS - 1);
+
+    private static final Color[] COLORS = Color.values();
+    private static final Country[] COUNTRIES = Country.values();
+
+    private final int size;
+    private final byte[] hairColors;
+    private final byte[] eyeColors;
+    private final byte[] nationalities;
+    private final long[] heights;
+    private final float[] weights;
+    private final AtomicBoolean appendable = new AtomicBoolean(true);
+
+    PersonColumns(int size, byte[] hairColors, byte[] eyeColors, byte[] nationalities,
+                  long[] heights, float[] weights) {
+        this.size = size;
+        this.hairColors = hairColors;
+        this.eyeColors = eyeColors;
+        this.nationalities = nationalities;
+        this.heights = heights;
+        this.weights = weights;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean hasMeasurements() {
+        return heights != null;
+    }
+
+    public Color hairColor(int person) {
+        return color(hairColors[person]);
+    }
+
+    public Color eyeColor(int person) {
+        return color(eyeColors[person]);
+    }
+
+    public Country nationality(int person) {
+        byte ordinal = nationalities[person];
+        return ordinal == NULL_NATIONALITY ? null : COUNTRIES[ordinal];
+    }
+
+    /**
+     * Height of the person, {@link ru.itmo.demography_service.client.PersonFields#UNKNOWN}
+     * when the person has none or measurements are not stored.
+     */
+    public long height(int person) {
+        return heights == null ? UNKNOWN : heights[person];
+    }
+
+    /**
+     * Weight of the person, {@link Float#NaN} when the person has none or measurements are
+     * not stored.
+     */
+    public float weight(int person) {
+        return weights == null ? Float.NaN : weights[person];
+    }
+
+    /**
+     * Persons per hair color ordinal; the last bucket counts persons without a hair color.
+     */
+    public long[] hairColorHistogram() {
+        return histogram(hairColors, PersonCountCube.COLOR_BUCKETS);
+    }
+
+    /**
+     * Persons per eye color ordinal; the last bucket counts persons without an eye color.
+     */
+    public long[] eyeColorHistogram() {
+        return histogram(eyeColors, PersonCountCube.COLOR_BUCKETS);
+    }
+
+    /**
+     * Persons per nationality ordinal; the last bucket counts persons without a nationality.
+     */
+    public long[] nationalityHistogram() {
+        return histogram(nationalities, PersonCountCube.NATIONALITY_BUCKETS);
+    }
+
+    public long countByHairColor(Color hairColor) {
+        return count(hairColors, colorOrdinal(hairColor));
+    }
+
+    public long countByNationalityAndEyeColor(Country nationality, Color eyeColor) {
+        byte nat = nationalityOrdinal(nationality);
+        byte eye = colorOrdinal(eyeColor);
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            count += (nationalities[i] == nat ? 1 : 0) & (eyeColors[i] == eye ? 1 : 0);
+        }
+        return count;
+    }
+
+    /**
+     * Rebuilds the count cube from the attribute columns in one pass.
+     */
+    public PersonCountCube toCube() {
+        PersonCountCube cube = new PersonCountCube();
+        for (int i = 0; i < size; i++) {
+            cube.addOrdinals(nationalities[i], hairColors[i], eyeColors[i]);
+        }
+        return cube;
+    }
+
+    /**
+     * Heap retained by the columns including spare capacity, excluding array headers.
+     */
+    public long retainedBytes() {
+        long bytes = (long) hairColors.length + eyeColors.length + nationalities.length;
+        if (heights != null) {
+            bytes += (long) heights.length * Long.BYTES + (long) weights.length * Float.BYTES;
+        }
+        return bytes;
+    }
+
+    byte[] column(PersonAttribute attribute) {
+        return switch (attribute) {
+            case NATIONALITY -> nationalities;
+            case HAIR_COLOR -> hairColors;
+            case EYE_COLOR -> eyeColors;
+        };
+    }
+
+    PersonColumnsBuilder toBuilder() {
+        if (appendable.compareAndSet(true, false)) {
+            return new PersonColumnsBuilder(size, hairColors, eyeColors, nationalities, heights, weights);
+        }
+        return new PersonColumnsBuilder(size, hairColors.clone(), eyeColors.clone(), nationalities.clone(),
+                heights == null ? null : heights.clone(), weights == null ? null : weights.clone());
+    }
+
+    public static byte colorOrdinal(Color color) {
+        return color == null ? NULL_COLOR : (byte) color.ordinal();
+    }
+
+    public static byte nationalityOrdinal(Country nationality) {
+        return nationality == null ? NULL_NATIONALITY : (byte) nationality.ordinal();
+    }
+
+    private long[] histogram(byte[] column, int buckets) {
+        long[] counts = new long[buckets];
+        for (int i = 0; i < size; i++) {
+            counts[column[i]]++;
+        }
+        return counts;
+    }
+
+    private long count(byte[] column, byte ordinal) {
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            count += column[i] == ordinal ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static Color color(byte ordinal) {
+        return ordinal == NULL_COLOR ? null : COLORS[ordinal];
+    }
+}
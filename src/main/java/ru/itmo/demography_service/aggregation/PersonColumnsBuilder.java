@@ -0,0 +1,112 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.client.PersonFields;
+
+import java.util.Arrays;
+
+/**
+ * Growable columns filled person by person from the upstream stream. Arrays grow by half
+ * their size. {@link #build()} hands them to the columns untrimmed, so the next delta sync
+ * can append into the spare capacity instead of copying every column.
+ */
+public final class PersonColumnsBuilder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final boolean measurements;
+
+    private int size;
+    private byte[] hairColors;
+    private byte[] eyeColors;
+    private byte[] nationalities;
+    private long[] heights;
+    private float[] weights;
+    private boolean built;
+
+    public PersonColumnsBuilder(boolean measurements) {
+        this.measurements = measurements;
+        this.hairColors = new byte[INITIAL_CAPACITY];
+        this.eyeColors = new byte[INITIAL_CAPACITY];
+        this.nationalities = new byte[INITIAL_CAPACITY];
+        if (measurements) {
+            this.heights = new long[INITIAL_CAPACITY];
+            this.weights = new float[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Appends after the first {@code size} entries of the given arrays, in place while they
+     * have room.
+     */
+    PersonColumnsBuilder(int size, byte[] hairColors, byte[] eyeColors, byte[] nationalities,
+                         long[] heights, float[] weights) {
+        this.measurements = heights != null;
+        this.size = size;
+        this.hairColors = hairColors;
+        this.eyeColors = eyeColors;
+        this.nationalities = nationalities;
+        this.heights = heights;
+        this.weights = weights;
+    }
+
+    public void append(PersonFields person) {
+        ensureCapacity(size + 1);
+
+        hairColors[size] = PersonColumns.colorOrdinal(person.hairColor());
+        eyeColors[size] = PersonColumns.colorOrdinal(person.eyeColor());
+        nationalities[size] = PersonColumns.nationalityOrdinal(person.nationality());
+        if (measurements) {
+            heights[size] = person.height();
+            weights[size] = person.weight();
+        }
+        size++;
+    }
+
+    public void append(PersonColumnsBuilder other) {
+        ensureCapacity(size + other.size);
+
+        System.arraycopy(other.hairColors, 0, hairColors, size, other.size);
+        System.arraycopy(other.eyeColors, 0, eyeColors, size, other.size);
+        System.arraycopy(other.nationalities, 0, nationalities, size, other.size);
+        if (measurements) {
+            if (other.measurements) {
+                System.arraycopy(other.heights, 0, heights, size, other.size);
+                System.arraycopy(other.weights, 0, weights, size, other.size);
+            } else {
+                Arrays.fill(heights, size, size + other.size, PersonFields.UNKNOWN);
+                Arrays.fill(weights, size, size + other.size, Float.NaN);
+            }
+        }
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public PersonColumns build() {
+        // The columns own the spare capacity now; appending after this copies first.
+        built = true;
+        return new PersonColumns(size, hairColors, eyeColors, nationalities, heights, weights);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= hairColors.length && !built) {
+            return;
+        }
+        if (required < 0) {
+            throw new IllegalStateException("Population does not fit into columns of " + Integer.MAX_VALUE);
+        }
+
+        int capacity = required <= hairColors.length ? hairColors.length : (int) Math.min(Integer.MAX_VALUE - 8,
+                Math.max(required, hairColors.length + ((long) hairColors.length >> 1)));
+        built = false;
+        hairColors = Arrays.copyOf(hairColors, capacity);
+        eyeColors = Arrays.copyOf(eyeColors, capacity);
+        nationalities = Arrays.copyOf(nationalities, capacity);
+        if (measurements) {
+            heights = Arrays.copyOf(heights, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+    }
+}
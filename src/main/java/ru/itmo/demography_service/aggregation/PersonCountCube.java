@@ -0,0 +1,136 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+
+/**
+ * Dense nationality x hairColor x eyeColor count cube. Every dimension has one extra
+ * trailing bucket for persons whose attribute is {@code null}, so the cube always sums
+ * up to the whole population.
+ */
+public final class PersonCountCube {
+
+    static final int COLOR_BUCKETS = Color.values().length + 1;
+    static final int NATIONALITY_BUCKETS = Country.values().length + 1;
+
+    static final int CELLS = NATIONALITY_BUCKETS * COLOR_BUCKETS * COLOR_BUCKETS;
+
+    private static final int NULL_COLOR = COLOR_BUCKETS - 1;
+    private static final int NULL_NATIONALITY = NATIONALITY_BUCKETS - 1;
+
+    private final long[] counts;
+    private long total;
+
+    public PersonCountCube() {
+        this.counts = new long[CELLS];
+    }
+
+    private PersonCountCube(long[] counts, long total) {
+        this.counts = counts;
+        this.total = total;
+    }
+
+    public static PersonCountCube of(Iterable<PersonDTO> persons) {
+        PersonCountCube cube = new PersonCountCube();
+        for (PersonDTO person : persons) {
+            cube.add(person.nationality(), person.hairColor(), person.eyeColor());
+        }
+        return cube;
+    }
+
+    static PersonCountCube ofCells(long[] cells) {
+        long total = 0;
+        for (long count : cells) {
+            total += count;
+        }
+        return new PersonCountCube(cells, total);
+    }
+
+    public void add(Country nationality, Color hairColor, Color eyeColor) {
+        counts[cell(nationalityBucket(nationality), colorBucket(hairColor), colorBucket(eyeColor))]++;
+        total++;
+    }
+
+    void addOrdinals(int nationality, int hairColor, int eyeColor) {
+        counts[cell(nationality, hairColor, eyeColor)]++;
+        total++;
+    }
+
+    public void merge(PersonCountCube other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public PersonCountCube copy() {
+        return new PersonCountCube(counts.clone(), total);
+    }
+
+    long[] cells() {
+        return counts;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public long count(Country nationality, Color hairColor, Color eyeColor) {
+        return counts[cell(nationalityBucket(nationality), colorBucket(hairColor), colorBucket(eyeColor))];
+    }
+
+    public long countByHairColor(Color hairColor) {
+        int hair = colorBucket(hairColor);
+        long sum = 0;
+        for (int nationality = 0; nationality < NATIONALITY_BUCKETS; nationality++) {
+            int base = cell(nationality, hair, 0);
+            for (int eye = 0; eye < COLOR_BUCKETS; eye++) {
+                sum += counts[base + eye];
+            }
+        }
+        return sum;
+    }
+
+    public long countByEyeColor(Color eyeColor) {
+        int eye = colorBucket(eyeColor);
+        long sum = 0;
+        for (int nationality = 0; nationality < NATIONALITY_BUCKETS; nationality++) {
+            for (int hair = 0; hair < COLOR_BUCKETS; hair++) {
+                sum += counts[cell(nationality, hair, eye)];
+            }
+        }
+        return sum;
+    }
+
+    public long countByNationality(Country nationality) {
+        int base = cell(nationalityBucket(nationality), 0, 0);
+        long sum = 0;
+        for (int i = 0; i < COLOR_BUCKETS * COLOR_BUCKETS; i++) {
+            sum += counts[base + i];
+        }
+        return sum;
+    }
+
+    public long countByNationalityAndEyeColor(Country nationality, Color eyeColor) {
+        int nat = nationalityBucket(nationality);
+        int eye = colorBucket(eyeColor);
+        long sum = 0;
+        for (int hair = 0; hair < COLOR_BUCKETS; hair++) {
+            sum += counts[cell(nat, hair, eye)];
+        }
+        return sum;
+    }
+
+    private static int cell(int nationality, int hairColor, int eyeColor) {
+        return (nationality * COLOR_BUCKETS + hairColor) * COLOR_BUCKETS + eyeColor;
+    }
+
+    private static int colorBucket(Color color) {
+        return color == null ? NULL_COLOR : color.ordinal();
+    }
+
+    private static int nationalityBucket(Country nationality) {
+        return nationality == null ? NULL_NATIONALITY : nationality.ordinal();
+    }
+}
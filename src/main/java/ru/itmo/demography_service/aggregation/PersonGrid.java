@@ -0,0 +1,152 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uniform grid over person coordinates holding one {@link PersonCountCube} per non-empty
+ * square cell of {@code cellSize} units. A bounding box is answered by merging the cells it
+ * overlaps, so it costs time proportional to those cells, or to the non-empty cells when
+ * the box is larger than the occupied area, never to the population. Boxes are widened to
+ * whole cells. Copies share the cell cubes and clone a cell when it is first written to.
+ */
+public final class PersonGrid {
+
+    public static final int DEFAULT_CELL_SIZE = 100;
+
+    private final int cellSize;
+    private final HashMap<Long, PersonCountCube> cells;
+    private final Set<Long> owned;
+
+    public PersonGrid(int cellSize) {
+        this(cellSize, new HashMap<>());
+    }
+
+    private PersonGrid(int cellSize, HashMap<Long, PersonCountCube> cells) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Grid cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.cells = cells;
+        this.owned = new HashSet<>();
+    }
+
+    static PersonGrid ofCells(int cellSize, HashMap<Long, PersonCountCube> cells) {
+        return new PersonGrid(cellSize, cells);
+    }
+
+    /**
+     * Result of a bounding box query: the merged counts and the cell-aligned box they cover.
+     */
+    public record Region(PersonCountCube cube, int cellsTouched, long minX, long minY, long maxX, long maxY) {
+    }
+
+    public void add(long x, long y, Country nationality, Color hairColor, Color eyeColor) {
+        writable(key(cellIndex(x), cellIndex(y))).add(nationality, hairColor, eyeColor);
+    }
+
+    public void merge(PersonGrid other) {
+        if (other.cellSize != cellSize) {
+            throw new IllegalArgumentException("Cannot merge grids with cell sizes " + cellSize
+                    + " and " + other.cellSize);
+        }
+        for (Map.Entry<Long, PersonCountCube> cell : other.cells.entrySet()) {
+            writable(cell.getKey()).merge(cell.getValue());
+        }
+    }
+
+    /**
+     * Both this grid and the copy clone a shared cell before writing to it.
+     */
+    public PersonGrid copy() {
+        if (!owned.isEmpty()) {
+            owned.clear();
+        }
+        return new PersonGrid(cellSize, new HashMap<>(cells));
+    }
+
+    public int cellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Non-empty cells.
+     */
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * Merges every cell overlapping the box from {@code (minX, minY)} to {@code (maxX, maxY)}
+     * inclusive.
+     */
+    public Region query(long minX, long minY, long maxX, long maxY) {
+        int fromX = cellIndex(minX);
+        int fromY = cellIndex(minY);
+        int toX = cellIndex(maxX);
+        int toY = cellIndex(maxY);
+
+        PersonCountCube cube = new PersonCountCube();
+        int touched = 0;
+        long width = (long) toX - fromX + 1;
+        long height = (long) toY - fromY + 1;
+        if (width <= cells.size() && height <= cells.size() && width * height <= cells.size()) {
+            for (int cellX = fromX; cellX <= toX; cellX++) {
+                for (int cellY = fromY; cellY <= toY; cellY++) {
+                    PersonCountCube cell = cells.get(key(cellX, cellY));
+                    if (cell != null) {
+                        cube.merge(cell);
+                        touched++;
+                    }
+                }
+            }
+        } else {
+            for (Map.Entry<Long, PersonCountCube> cell : cells.entrySet()) {
+                int cellX = (int) (cell.getKey() >> 32);
+                int cellY = (int) (long) cell.getKey();
+                if (cellX >= fromX && cellX <= toX && cellY >= fromY && cellY <= toY) {
+                    cube.merge(cell.getValue());
+                    touched++;
+                }
+            }
+        }
+
+        return new Region(cube, touched, (long) fromX * cellSize, (long) fromY * cellSize,
+                ((long) toX + 1) * cellSize - 1, ((long) toY + 1) * cellSize - 1);
+    }
+
+    Map<Long, PersonCountCube> cells() {
+        return cells;
+    }
+
+    /**
+     * Coordinates beyond the int range of cell indexes fall into the outermost cells.
+     */
+    private int cellIndex(long coordinate) {
+        long index = Math.floorDiv(coordinate, cellSize);
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, index));
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    private PersonCountCube writable(long key) {
+        PersonCountCube cube = cells.get(key);
+        if (cube == null) {
+            cube = new PersonCountCube();
+        } else if (!owned.contains(key)) {
+            cube = cube.copy();
+        } else {
+            return cube;
+        }
+        cells.put(key, cube);
+        owned.add(key);
+        return cube;
+    }
+}
@@ -0,0 +1,115 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.dto.enums.Country;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Persons per location name and nationality, with the same trailing {@code null} bucket as
+ * {@link PersonCountCube}. Persons without a location name are not counted. Copies share the
+ * per-location counts and clone a location's counts when it is first written to.
+ */
+public final class PersonLocationCounts {
+
+    private static final Comparator<LocationCount> RANKING = Comparator.comparingLong(LocationCount::count)
+            .reversed()
+            .thenComparing(LocationCount::name);
+
+    private final HashMap<String, long[]> counts;
+    private final Set<String> owned;
+
+    public PersonLocationCounts() {
+        this(new HashMap<>());
+    }
+
+    private PersonLocationCounts(HashMap<String, long[]> counts) {
+        this.counts = counts;
+        this.owned = new HashSet<>();
+    }
+
+    static PersonLocationCounts ofCounts(HashMap<String, long[]> counts) {
+        return new PersonLocationCounts(counts);
+    }
+
+    public record LocationCount(String name, long count) {
+    }
+
+    public void add(String location, Country nationality) {
+        writable(location)[PersonColumns.nationalityOrdinal(nationality)]++;
+    }
+
+    public void merge(PersonLocationCounts other) {
+        for (Map.Entry<String, long[]> location : other.counts.entrySet()) {
+            long[] target = writable(location.getKey());
+            long[] source = location.getValue();
+            for (int i = 0; i < target.length; i++) {
+                target[i] += source[i];
+            }
+        }
+    }
+
+    /**
+     * Both these counts and the copy clone a shared location's counts before writing to them.
+     */
+    public PersonLocationCounts copy() {
+        if (!owned.isEmpty()) {
+            owned.clear();
+        }
+        return new PersonLocationCounts(new HashMap<>(counts));
+    }
+
+    /**
+     * Distinct location names.
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * The {@code limit} locations with the most persons of {@code nationality}, most first and
+     * ties by name; locations without such persons are left out. Scans every distinct location,
+     * so the cost grows with {@link #size()} rather than with {@code limit}.
+     */
+    public List<LocationCount> top(Country nationality, int limit) {
+        int bucket = PersonColumns.nationalityOrdinal(nationality);
+        PriorityQueue<LocationCount> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (Map.Entry<String, long[]> location : counts.entrySet()) {
+            long count = location.getValue()[bucket];
+            if (count > 0) {
+                top.add(new LocationCount(location.getKey(), count));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+
+        List<LocationCount> result = new ArrayList<>(top);
+        result.sort(RANKING);
+        return result;
+    }
+
+    Map<String, long[]> counts() {
+        return counts;
+    }
+
+    private long[] writable(String location) {
+        long[] byNationality = counts.get(location);
+        if (byNationality == null) {
+            byNationality = new long[PersonCountCube.NATIONALITY_BUCKETS];
+        } else if (!owned.contains(location)) {
+            byNationality = byNationality.clone();
+        } else {
+            return byNationality;
+        }
+        counts.put(location, byNationality);
+        owned.add(location);
+        return byNationality;
+    }
+}
@@ -0,0 +1,172 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+
+import java.util.SplittableRandom;
+
+/**
+ * Uniform random sample of at most {@code capacity} persons, kept with reservoir sampling
+ * (Algorithm R) while the population streams in. Only the attribute ordinals are kept, with
+ * the same trailing {@code null} bucket as {@link PersonColumns}. Reservoirs filled from
+ * disjoint parts of the population, such as pages, can be merged into a sample of the union.
+ */
+public final class PersonReservoir {
+
+    private static final long SEED = 0x5eed_5a3b1eL;
+
+    private final int capacity;
+    private final byte[] hairColors;
+    private final byte[] eyeColors;
+    private final byte[] nationalities;
+    private final SplittableRandom random;
+
+    private int size;
+    private long seen;
+
+    public PersonReservoir(int capacity) {
+        this(capacity, new SplittableRandom(SEED));
+    }
+
+    /**
+     * @param random stream the reservoir draws from and then owns; reservoirs that are filled
+     *               separately and merged, such as one per page, should each get a stream
+     *               {@link SplittableRandom#split() split} from one root, or they pick the
+     *               same slots and their samples are correlated
+     */
+    public PersonReservoir(int capacity, SplittableRandom random) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Reservoir capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.hairColors = new byte[capacity];
+        this.eyeColors = new byte[capacity];
+        this.nationalities = new byte[capacity];
+        this.random = random;
+    }
+
+    public void offer(Country nationality, Color hairColor, Color eyeColor) {
+        int slot;
+        if (size < capacity) {
+            slot = size++;
+        } else {
+            long candidate = random.nextLong(seen + 1);
+            if (candidate >= capacity) {
+                seen++;
+                return;
+            }
+            slot = (int) candidate;
+        }
+        seen++;
+        hairColors[slot] = PersonColumns.colorOrdinal(hairColor);
+        eyeColors[slot] = PersonColumns.colorOrdinal(eyeColor);
+        nationalities[slot] = PersonColumns.nationalityOrdinal(nationality);
+    }
+
+    /**
+     * Replaces this sample with a uniform sample of both populations: every slot is drawn
+     * without replacement from one side, with odds proportional to the persons that side
+     * still represents.
+     */
+    public void merge(PersonReservoir other) {
+        if (other.seen == 0) {
+            return;
+        }
+        if (size == seen && other.size == other.seen && size + other.size <= capacity) {
+            for (int i = 0; i < other.size; i++) {
+                put(size++, other, i);
+            }
+            seen += other.seen;
+            return;
+        }
+
+        PersonReservoir left = copy();
+        PersonReservoir right = other.copy();
+        long leftRemaining = left.seen;
+        long rightRemaining = right.seen;
+        int target = (int) Math.min(capacity, left.seen + right.seen);
+
+        size = 0;
+        for (int i = 0; i < target; i++) {
+            boolean fromLeft = right.size == 0
+                    || (left.size > 0 && random.nextLong(leftRemaining + rightRemaining) < leftRemaining);
+            PersonReservoir source = fromLeft ? left : right;
+            int pick = random.nextInt(source.size);
+            put(size++, source, pick);
+            source.removeAt(pick);
+            if (fromLeft) {
+                leftRemaining--;
+            } else {
+                rightRemaining--;
+            }
+        }
+        seen = left.seen + right.seen;
+    }
+
+    public PersonReservoir copy() {
+        PersonReservoir copy = new PersonReservoir(capacity, random.split());
+        System.arraycopy(hairColors, 0, copy.hairColors, 0, size);
+        System.arraycopy(eyeColors, 0, copy.eyeColors, 0, size);
+        System.arraycopy(nationalities, 0, copy.nationalities, 0, size);
+        copy.size = size;
+        copy.seen = seen;
+        return copy;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Persons currently in the sample.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Persons the sample was drawn from.
+     */
+    public long populationSize() {
+        return seen;
+    }
+
+    public int countByHairColor(Color hairColor) {
+        return count(hairColors, PersonColumns.colorOrdinal(hairColor));
+    }
+
+    public int countByNationality(Country nationality) {
+        return count(nationalities, PersonColumns.nationalityOrdinal(nationality));
+    }
+
+    public int countByNationalityAndEyeColor(Country nationality, Color eyeColor) {
+        byte nat = PersonColumns.nationalityOrdinal(nationality);
+        byte eye = PersonColumns.colorOrdinal(eyeColor);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count += (nationalities[i] == nat ? 1 : 0) & (eyeColors[i] == eye ? 1 : 0);
+        }
+        return count;
+    }
+
+    private int count(byte[] column, byte ordinal) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count += column[i] == ordinal ? 1 : 0;
+        }
+        return count;
+    }
+
+    private void put(int slot, PersonReservoir source, int index) {
+        hairColors[slot] = source.hairColors[index];
+        eyeColors[slot] = source.eyeColors[index];
+        nationalities[slot] = source.nationalities[index];
+    }
+
+    private void removeAt(int index) {
+        size--;
+        hairColors[index] = hairColors[size];
+        eyeColors[index] = eyeColors[size];
+        nationalities[index] = nationalities[size];
+    }
+}
@@ -0,0 +1,119 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.TimeBucket;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * One {@link PersonCountCube} per UTC creation day, so trends over any date range merge only
+ * the days inside it. Weeks and months are rolled up from days at query time. Copies share
+ * the day cubes and clone a day only when it is first written to, which keeps a delta sync
+ * proportional to the days it touches rather than to the whole history.
+ */
+public final class PersonTimeline {
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final TreeMap<Long, PersonCountCube> days;
+    private final Set<Long> owned;
+
+    private long currentDay = Long.MIN_VALUE;
+    private PersonCountCube currentCube;
+
+    public PersonTimeline() {
+        this(new TreeMap<>());
+    }
+
+    private PersonTimeline(TreeMap<Long, PersonCountCube> days) {
+        this.days = days;
+        this.owned = new HashSet<>();
+    }
+
+    static PersonTimeline ofDays(TreeMap<Long, PersonCountCube> days) {
+        return new PersonTimeline(days);
+    }
+
+    public void add(long creationEpochSecond, Country nationality, Color hairColor, Color eyeColor) {
+        long day = Math.floorDiv(creationEpochSecond, SECONDS_PER_DAY);
+        if (day != currentDay) {
+            currentCube = writable(day);
+            currentDay = day;
+        }
+        currentCube.add(nationality, hairColor, eyeColor);
+    }
+
+    public void merge(PersonTimeline other) {
+        for (Map.Entry<Long, PersonCountCube> day : other.days.entrySet()) {
+            writable(day.getKey()).merge(day.getValue());
+        }
+    }
+
+    /**
+     * Both this timeline and the copy clone a shared day before writing to it.
+     */
+    public PersonTimeline copy() {
+        if (!owned.isEmpty()) {
+            owned.clear();
+            currentDay = Long.MIN_VALUE;
+        }
+        return new PersonTimeline(new TreeMap<>(days));
+    }
+
+    /**
+     * Persons with a creation date; persons without one are not on the timeline.
+     */
+    public long total() {
+        long total = 0;
+        for (PersonCountCube cube : days.values()) {
+            total += cube.total();
+        }
+        return total;
+    }
+
+    public LocalDate firstDay() {
+        return days.isEmpty() ? null : LocalDate.ofEpochDay(days.firstKey());
+    }
+
+    public LocalDate lastDay() {
+        return days.isEmpty() ? null : LocalDate.ofEpochDay(days.lastKey());
+    }
+
+    /**
+     * Merges the days from {@code from} to {@code to} inclusive into buckets keyed by their
+     * {@link TimeBucket#start}. Buckets without persons are absent.
+     */
+    public NavigableMap<LocalDate, PersonCountCube> rollup(LocalDate from, LocalDate to, TimeBucket bucket) {
+        NavigableMap<LocalDate, PersonCountCube> rollup = new TreeMap<>();
+        for (Map.Entry<Long, PersonCountCube> day
+                : days.subMap(from.toEpochDay(), true, to.toEpochDay(), true).entrySet()) {
+            LocalDate start = bucket.start(LocalDate.ofEpochDay(day.getKey()));
+            rollup.computeIfAbsent(start, key -> new PersonCountCube()).merge(day.getValue());
+        }
+        return rollup;
+    }
+
+    NavigableMap<Long, PersonCountCube> days() {
+        return days;
+    }
+
+    private PersonCountCube writable(long day) {
+        PersonCountCube cube = days.get(day);
+        if (cube == null) {
+            cube = new PersonCountCube();
+        } else if (!owned.contains(day)) {
+            cube = cube.copy();
+        } else {
+            return cube;
+        }
+        days.put(day, cube);
+        owned.add(day);
+        return cube;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.itmo.demography_service.aggregation;
+
+/**
+ * Immutable result of one ingestion: the aggregates served to readers plus the
+ * id / creationDate watermarks that incremental sync continues from. {@code columns}
+ * and its {@code index} are {@code null} when the columnar store is disabled, {@code sample}
+ * when approximate statistics are. {@code timeline} holds the persons with a creationDate
+ * per day for trend queries, {@code grid} and {@code locations} those with coordinates and a
+ * location name for regional queries.
+ */
+public record Population(
+        PersonCountCube cube,
+        PersonColumns columns,
+        PersonBitmapIndex index,
+        PersonReservoir sample,
+        PersonTimeline timeline,
+        PersonGrid grid,
+        PersonLocationCounts locations,
+        long maxId,
+        long maxCreationEpochSecond
+) {
+    public long size() {
+        return cube.total();
+    }
+
+    public PopulationBuilder toBuilder() {
+        return new PopulationBuilder(cube.copy(), columns == null ? null : columns.toBuilder(), index,
+                sample == null ? null : sample.copy(), timeline.copy(),
+                grid.copy(), locations.copy(), maxId, maxCreationEpochSecond);
+    }
+}
@@ -0,0 +1,145 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.client.PersonFields;
+import ru.itmo.demography_service.client.PersonSink;
+
+import static ru.itmo.demography_service.client.PersonFields.UNKNOWN;
+
+public final class PopulationBuilder implements PersonSink {
+
+    private final PersonCountCube cube;
+    private final PersonColumnsBuilder columns;
+    private final PersonBitmapIndex index;
+    private final PersonReservoir sample;
+    private final PersonTimeline timeline;
+    private final PersonGrid grid;
+    private final PersonLocationCounts locations;
+
+    private long minId = Long.MAX_VALUE;
+    private long maxId;
+    private long minCreationEpochSecond = Long.MAX_VALUE;
+    private long maxCreationEpochSecond;
+
+    public PopulationBuilder() {
+        this(null);
+    }
+
+    /**
+     * @param columns receives every accepted person as well, or {@code null} to keep only the cube
+     */
+    public PopulationBuilder(PersonColumnsBuilder columns) {
+        this(columns, null);
+    }
+
+    /**
+     * @param sample receives every accepted person as well, or {@code null} to keep no sample
+     */
+    public PopulationBuilder(PersonColumnsBuilder columns, PersonReservoir sample) {
+        this(columns, sample, PersonGrid.DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param gridCellSize side of the square cells the coordinates are counted in
+     */
+    public PopulationBuilder(PersonColumnsBuilder columns, PersonReservoir sample, int gridCellSize) {
+        this(new PersonCountCube(), columns, null, sample, new PersonTimeline(), new PersonGrid(gridCellSize),
+                new PersonLocationCounts(), UNKNOWN, UNKNOWN);
+    }
+
+    /**
+     * @param index index over the persons already in {@code columns}, extended on {@link #build()}
+     *              instead of rebuilding it, or {@code null}
+     */
+    PopulationBuilder(PersonCountCube cube, PersonColumnsBuilder columns, PersonBitmapIndex index,
+                      PersonReservoir sample, PersonTimeline timeline, PersonGrid grid,
+                      PersonLocationCounts locations, long maxId, long maxCreationEpochSecond) {
+        this.cube = cube;
+        this.columns = columns;
+        this.index = index;
+        this.sample = sample;
+        this.timeline = timeline;
+        this.grid = grid;
+        this.locations = locations;
+        this.maxId = maxId;
+        this.maxCreationEpochSecond = maxCreationEpochSecond;
+    }
+
+    @Override
+    public void accept(PersonFields person) {
+        cube.add(person.nationality(), person.hairColor(), person.eyeColor());
+        if (columns != null) {
+            columns.append(person);
+        }
+        if (sample != null) {
+            sample.offer(person.nationality(), person.hairColor(), person.eyeColor());
+        }
+        if (person.coordinateX() != UNKNOWN && person.coordinateY() != UNKNOWN) {
+            grid.add(person.coordinateX(), person.coordinateY(),
+                    person.nationality(), person.hairColor(), person.eyeColor());
+        }
+        if (person.locationName() != null) {
+            locations.add(person.locationName(), person.nationality());
+        }
+
+        minId = Math.min(minId, person.id());
+        maxId = Math.max(maxId, person.id());
+
+        if (person.creationEpochSecond() != UNKNOWN) {
+            timeline.add(person.creationEpochSecond(), person.nationality(), person.hairColor(), person.eyeColor());
+            minCreationEpochSecond = Math.min(minCreationEpochSecond, person.creationEpochSecond());
+            maxCreationEpochSecond = Math.max(maxCreationEpochSecond, person.creationEpochSecond());
+        }
+    }
+
+    public void merge(PopulationBuilder other) {
+        cube.merge(other.cube);
+        if (columns != null) {
+            if (other.columns == null) {
+                throw new IllegalArgumentException("Cannot merge a population without columns into a columnar one");
+            }
+            columns.append(other.columns);
+        }
+        if (sample != null) {
+            if (other.sample == null) {
+                throw new IllegalArgumentException("Cannot merge a population without a sample into a sampled one");
+            }
+            sample.merge(other.sample);
+        }
+        timeline.merge(other.timeline);
+        grid.merge(other.grid);
+        locations.merge(other.locations);
+        minId = Math.min(minId, other.minId);
+        maxId = Math.max(maxId, other.maxId);
+        minCreationEpochSecond = Math.min(minCreationEpochSecond, other.minCreationEpochSecond);
+        maxCreationEpochSecond = Math.max(maxCreationEpochSecond, other.maxCreationEpochSecond);
+    }
+
+    public long size() {
+        return cube.total();
+    }
+
+    /**
+     * Smallest id accepted since this builder was created, {@link Long#MAX_VALUE} if nothing
+     * was accepted. A person without an id counts as {@link PersonFields#UNKNOWN}, which is
+     * below any watermark.
+     */
+    public long minId() {
+        return minId;
+    }
+
+    public long minCreationEpochSecond() {
+        return minCreationEpochSecond;
+    }
+
+    public Population build() {
+        PersonReservoir builtSample = sample == null ? null : sample.copy();
+        if (columns == null) {
+            return new Population(cube.copy(), null, null, builtSample, timeline.copy(), grid.copy(),
+                    locations.copy(), maxId, maxCreationEpochSecond);
+        }
+        PersonColumns built = columns.build();
+        PersonBitmapIndex builtIndex = index == null ? PersonBitmapIndex.of(built) : index.extend(built);
+        return new Population(cube.copy(), built, builtIndex, builtSample, timeline.copy(),
+                grid.copy(), locations.copy(), maxId, maxCreationEpochSecond);
+    }
+}
@@ -0,0 +1,298 @@
+package ru.itmo.demography_service.aggregation;
+
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.PersonAttribute;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary image of a {@link Population} for warm restarts. A fixed header carries the format
+ * version, an enum layout hash, the watermarks and a CRC32C of the payload; the payload holds
+ * the upstream entity tag, the count cube cells, the attribute columns when present, the
+ * per-day cubes of the timeline, the grid cells and the per-location counts.
+ * Files are read through a memory mapping, and any mismatch in magic, version, layout, length
+ * or checksum is reported as an {@link IOException} so the caller can discard the file.
+ */
+public final class PopulationFile {
+
+    public static final int FORMAT_VERSION = 3;
+
+    private static final long MAGIC = 0x44454D4F504F5001L; // "DEMOPOP\1"
+    private static final int HEADER_BYTES = 72;
+
+    private static final int FLAG_COLUMNS = 1;
+    private static final int FLAG_MEASUREMENTS = 2;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private PopulationFile() {
+    }
+
+    public record Contents(Population population, Instant savedAt, String upstreamEntityTag) {
+    }
+
+    public static void write(Path path, Population population, Instant savedAt, String upstreamEntityTag)
+            throws IOException {
+
+        PersonColumns columns = population.columns();
+        long[] cells = population.cube().cells();
+        byte[] etag = upstreamEntityTag == null ? new byte[0] : upstreamEntityTag.getBytes(StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            channel.position(HEADER_BYTES);
+            CRC32C checksum = new CRC32C();
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), checksum);
+            // Not closed: closing would close the channel before the header is written.
+            DataOutputStream out = new DataOutputStream(checked);
+
+            out.write(etag);
+            for (long cell : cells) {
+                out.writeLong(cell);
+            }
+            if (columns != null) {
+                out.write(columns.column(PersonAttribute.HAIR_COLOR), 0, columns.size());
+                out.write(columns.column(PersonAttribute.EYE_COLOR), 0, columns.size());
+                out.write(columns.column(PersonAttribute.NATIONALITY), 0, columns.size());
+                if (columns.hasMeasurements()) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        out.writeLong(columns.height(i));
+                    }
+                    for (int i = 0; i < columns.size(); i++) {
+                        out.writeFloat(columns.weight(i));
+                    }
+                }
+            }
+            Map<Long, PersonCountCube> days = population.timeline().days();
+            out.writeInt(days.size());
+            for (Map.Entry<Long, PersonCountCube> day : days.entrySet()) {
+                out.writeLong(day.getKey());
+                for (long cell : day.getValue().cells()) {
+                    out.writeLong(cell);
+                }
+            }
+            PersonGrid grid = population.grid();
+            out.writeInt(grid.cellSize());
+            out.writeInt(grid.size());
+            for (Map.Entry<Long, PersonCountCube> cell : grid.cells().entrySet()) {
+                out.writeLong(cell.getKey());
+                for (long count : cell.getValue().cells()) {
+                    out.writeLong(count);
+                }
+            }
+            Map<String, long[]> locations = population.locations().counts();
+            out.writeInt(locations.size());
+            for (Map.Entry<String, long[]> location : locations.entrySet()) {
+                byte[] name = location.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                for (long count : location.getValue()) {
+                    out.writeLong(count);
+                }
+            }
+            out.flush();
+            long payloadLength = channel.position() - HEADER_BYTES;
+
+            int flags = (columns != null ? FLAG_COLUMNS : 0)
+                    | (columns != null && columns.hasMeasurements() ? FLAG_MEASUREMENTS : 0);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putLong(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putInt(flags)
+                    .putLong(savedAt.toEpochMilli())
+                    .putLong(population.maxId())
+                    .putLong(population.maxCreationEpochSecond())
+                    .putInt(columns == null ? 0 : columns.size())
+                    .putInt(cells.length)
+                    .putInt(etag.length)
+                    .putInt(layoutHash())
+                    .putLong(payloadLength)
+                    .putLong(checksum.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    public static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("File is shorter than the " + HEADER_BYTES + " byte header");
+            }
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("File of " + fileSize + " bytes is too large to map");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+            if (buffer.getLong() != MAGIC) {
+                throw new IOException("Not a population file");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported format version " + version + ", expected " + FORMAT_VERSION);
+            }
+            int flags = buffer.getInt();
+            Instant savedAt = Instant.ofEpochMilli(buffer.getLong());
+            long maxId = buffer.getLong();
+            long maxCreationEpochSecond = buffer.getLong();
+            int size = buffer.getInt();
+            int cellCount = buffer.getInt();
+            int etagLength = buffer.getInt();
+            int layout = buffer.getInt();
+            long payloadLength = buffer.getLong();
+            long expectedChecksum = buffer.getLong();
+
+            if (size < 0 || etagLength < 0) {
+                throw new IOException("Header holds a negative length");
+            }
+            if (layout != layoutHash() || cellCount != PersonCountCube.CELLS) {
+                throw new IOException("File was written for different nationality or color enums");
+            }
+            if (payloadLength != fileSize - HEADER_BYTES) {
+                throw new IOException("Payload is " + (fileSize - HEADER_BYTES) + " bytes, header says "
+                        + payloadLength);
+            }
+
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.slice(HEADER_BYTES, (int) payloadLength));
+            if (checksum.getValue() != expectedChecksum) {
+                throw new IOException("Payload checksum mismatch");
+            }
+
+            byte[] etag = new byte[etagLength];
+            buffer.get(etag);
+
+            long[] cells = new long[cellCount];
+            buffer.asLongBuffer().get(cells);
+            buffer.position(buffer.position() + cellCount * Long.BYTES);
+
+            PersonColumns columns = null;
+            if ((flags & FLAG_COLUMNS) != 0) {
+                byte[] hairColors = new byte[size];
+                byte[] eyeColors = new byte[size];
+                byte[] nationalities = new byte[size];
+                buffer.get(hairColors).get(eyeColors).get(nationalities);
+                checkOrdinals(hairColors, PersonColumns.NULL_COLOR);
+                checkOrdinals(eyeColors, PersonColumns.NULL_COLOR);
+                checkOrdinals(nationalities, PersonColumns.NULL_NATIONALITY);
+
+                long[] heights = null;
+                float[] weights = null;
+                if ((flags & FLAG_MEASUREMENTS) != 0) {
+                    heights = new long[size];
+                    weights = new float[size];
+                    buffer.asLongBuffer().get(heights);
+                    buffer.position(buffer.position() + size * Long.BYTES);
+                    buffer.asFloatBuffer().get(weights);
+                    buffer.position(buffer.position() + size * Float.BYTES);
+                }
+                columns = new PersonColumns(size, hairColors, eyeColors, nationalities, heights, weights);
+            }
+
+            int dayCount = buffer.getInt();
+            if (dayCount < 0) {
+                throw new IOException("Timeline holds a negative day count");
+            }
+            TreeMap<Long, PersonCountCube> days = new TreeMap<>();
+            for (int i = 0; i < dayCount; i++) {
+                long day = buffer.getLong();
+                long[] dayCells = new long[cellCount];
+                buffer.asLongBuffer().get(dayCells);
+                buffer.position(buffer.position() + cellCount * Long.BYTES);
+                days.put(day, PersonCountCube.ofCells(dayCells));
+            }
+
+            int gridCellSize = buffer.getInt();
+            int gridCellCount = buffer.getInt();
+            if (gridCellSize <= 0 || gridCellCount < 0) {
+                throw new IOException("Grid holds cell size " + gridCellSize + " and " + gridCellCount + " cells");
+            }
+            HashMap<Long, PersonCountCube> gridCells = new HashMap<>(gridCellCount * 2);
+            for (int i = 0; i < gridCellCount; i++) {
+                long key = buffer.getLong();
+                long[] counts = new long[cellCount];
+                buffer.asLongBuffer().get(counts);
+                buffer.position(buffer.position() + cellCount * Long.BYTES);
+                gridCells.put(key, PersonCountCube.ofCells(counts));
+            }
+
+            int locationCount = buffer.getInt();
+            if (locationCount < 0) {
+                throw new IOException("Location counts hold a negative length");
+            }
+            HashMap<String, long[]> locations = new HashMap<>(locationCount * 2);
+            for (int i = 0; i < locationCount; i++) {
+                int nameLength = buffer.getInt();
+                if (nameLength < 0) {
+                    throw new IOException("Location name holds a negative length");
+                }
+                byte[] name = new byte[nameLength];
+                buffer.get(name);
+                long[] byNationality = new long[PersonCountCube.NATIONALITY_BUCKETS];
+                buffer.asLongBuffer().get(byNationality);
+                buffer.position(buffer.position() + byNationality.length * Long.BYTES);
+                locations.put(new String(name, StandardCharsets.UTF_8), byNationality);
+            }
+
+            PersonCountCube cube = PersonCountCube.ofCells(cells);
+            if (columns != null && columns.size() != cube.total()) {
+                throw new IOException("Columns hold " + columns.size() + " persons, cube " + cube.total());
+            }
+
+            // The sample is not persisted; approximate statistics fall back to exact ones until
+            // the next full sync draws a new sample.
+            Population population = new Population(cube, columns,
+                    columns == null ? null : PersonBitmapIndex.of(columns), null, PersonTimeline.ofDays(days),
+                    PersonGrid.ofCells(gridCellSize, gridCells), PersonLocationCounts.ofCounts(locations),
+                    maxId, maxCreationEpochSecond);
+            return new Contents(population, savedAt,
+                    etagLength == 0 ? null : new String(etag, StandardCharsets.UTF_8));
+
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Population file is truncated", e);
+        }
+    }
+
+    /**
+     * Ordinals are persisted as bytes, so the file is only valid for the enum constants it was
+     * written with.
+     */
+    private static int layoutHash() {
+        return Arrays.hashCode(new Object[]{
+                Arrays.stream(Color.values()).map(Enum::name).toList(),
+                Arrays.stream(Country.values()).map(Enum::name).toList()});
+    }
+
+    private static void checkOrdinals(byte[] column, byte max) throws IOException {
+        for (byte ordinal : column) {
+            if (ordinal < 0 || ordinal > max) {
+                throw new IOException("Column holds ordinal " + ordinal + " outside 0.." + max);
+            }
+        }
+    }
+}
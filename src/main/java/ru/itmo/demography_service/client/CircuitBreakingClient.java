@@ -0,0 +1,47 @@
+package ru.itmo.demography_service.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+import java.io.IOException;
+
+/**
+ * Guards every Person Service call with a circuit breaker. Transport errors and 5xx answers
+ * count as failures; while the breaker is open calls throw {@link CallNotPermittedException}
+ * without touching the network.
+ */
+public class CircuitBreakingClient implements Client {
+
+    private final Client delegate;
+    private final CircuitBreaker circuitBreaker;
+
+    public CircuitBreakingClient(Client delegate, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        circuitBreaker.acquirePermission();
+
+        long start = circuitBreaker.getCurrentTimestamp();
+        try {
+            Response response = delegate.execute(request, options);
+            long duration = circuitBreaker.getCurrentTimestamp() - start;
+            if (response.status() >= 500) {
+                circuitBreaker.onError(duration, circuitBreaker.getTimestampUnit(),
+                        new IOException("Person service answered " + response.status()));
+            } else {
+                circuitBreaker.onSuccess(duration, circuitBreaker.getTimestampUnit());
+            }
+            return response;
+        } catch (Throwable e) {
+            // Errors too: in the half-open state an unreported call keeps its permit forever.
+            circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit(), e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package ru.itmo.demography_service.client;
+
+import com.github.luben.zstd.ZstdInputStream;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.brotli.dec.BrotliInputStream;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+import ru.itmo.demography_service.metrics.PersonServiceClientMetrics;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Asks Person Service for compressed bodies and inflates them while they are read, so the
+ * ingestion path parses plain JSON without the payload ever being buffered. Transports that
+ * already inflate gzip themselves, such as {@link Client.Default}, are detected by the missing
+ * gzip magic and passed through; their wire size is taken from the Content-Length they kept.
+ */
+public class DecompressingClient implements Client {
+
+    public static final List<String> SUPPORTED_ENCODINGS = List.of("gzip", "zstd", "br");
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Client delegate;
+    private final String acceptEncoding;
+    private final DemographyMetrics demographyMetrics;
+
+    public DecompressingClient(Client delegate, List<String> encodings, DemographyMetrics demographyMetrics) {
+        for (String encoding : encodings) {
+            if (!SUPPORTED_ENCODINGS.contains(encoding)) {
+                throw new IllegalArgumentException("Unsupported Person Service content encoding: " + encoding);
+            }
+        }
+        this.delegate = delegate;
+        this.acceptEncoding = String.join(", ", encodings);
+        this.demographyMetrics = demographyMetrics;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        Response response = delegate.execute(withAcceptEncoding(request), options);
+
+        String encoding = contentEncoding(response);
+        if (encoding == null || response.body() == null) {
+            return response;
+        }
+
+        String method = PersonServiceClientMetrics.methodName(request);
+        CountingInputStream wire = new CountingInputStream(response.body().asInputStream());
+        InputStream decoded;
+        switch (encoding) {
+            case "gzip", "x-gzip" -> {
+                BufferedInputStream buffered = new BufferedInputStream(wire, BUFFER_SIZE);
+                if (!startsWithGzipMagic(buffered)) {
+                    long contentLength = contentLength(response);
+                    if (contentLength < 0) {
+                        return withBody(response, buffered);
+                    }
+                    return withBody(response,
+                            new DecodedInputStream(buffered, () -> contentLength, method, encoding));
+                }
+                decoded = new GZIPInputStream(buffered, BUFFER_SIZE);
+            }
+            case "zstd" -> decoded = new ZstdInputStream(wire);
+            case "br" -> decoded = new BrotliInputStream(wire);
+            default -> {
+                return response;
+            }
+        }
+
+        return withBody(response, new DecodedInputStream(decoded, () -> wire.bytes, method, encoding));
+    }
+
+    private Request withAcceptEncoding(Request request) {
+        if (acceptEncoding.isEmpty()
+                || request.headers().keySet().stream().anyMatch(ACCEPT_ENCODING::equalsIgnoreCase)) {
+            return request;
+        }
+
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        headers.put(ACCEPT_ENCODING, List.of(acceptEncoding));
+        return Request.create(request.httpMethod(), request.url(), headers,
+                request.body(), request.charset(), request.requestTemplate());
+    }
+
+    private static String contentEncoding(Response response) {
+        return response.headers().entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(CONTENT_ENCODING))
+                .flatMap(entry -> entry.getValue().stream())
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .filter(value -> !value.isEmpty() && !value.equals("identity"))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * @return the Content-Length header, or {@code -1} when it is missing or not a number
+     */
+    private static long contentLength(Response response) {
+        return response.headers().entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(CONTENT_LENGTH))
+                .flatMap(entry -> entry.getValue().stream())
+                .findFirst()
+                .map(value -> {
+                    try {
+                        return Long.parseLong(value.trim());
+                    } catch (NumberFormatException e) {
+                        return -1L;
+                    }
+                })
+                .orElse(-1L);
+    }
+
+    private static boolean startsWithGzipMagic(BufferedInputStream buffered) throws IOException {
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        return first == 0x1f && second == 0x8b;
+    }
+
+    private static Response withBody(Response response, InputStream body) {
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        response.headers().forEach((name, values) -> {
+            if (!name.equalsIgnoreCase(CONTENT_ENCODING) && !name.equalsIgnoreCase(CONTENT_LENGTH)) {
+                headers.put(name, values);
+            }
+        });
+
+        return response.toBuilder()
+                .headers(headers)
+                .body(body, null)
+                .build();
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        long bytes;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+    }
+
+    private final class DecodedInputStream extends CountingInputStream {
+
+        private final LongSupplier wireBytes;
+        private final String method;
+        private final String encoding;
+
+        private boolean closed;
+
+        DecodedInputStream(InputStream decoded, LongSupplier wireBytes, String method, String encoding) {
+            super(decoded);
+            this.wireBytes = wireBytes;
+            this.method = method;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                demographyMetrics.upstreamBodyDecompressed(method, encoding, wireBytes.getAsLong(), bytes);
+            }
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.itmo.demography_service.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Feeds response chunks into a non-blocking Jackson parser as they arrive and pushes the
+ * resulting tokens through {@link PersonStreamReader}, so nothing waits for the whole body.
+ */
+final class NonBlockingPersonStreamReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final PersonStreamReader reader;
+
+    NonBlockingPersonStreamReader(PersonSink sink) {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.reader = new PersonStreamReader(sink);
+    }
+
+    NonBlockingPersonStreamReader feed(DataBuffer buffer) {
+        try {
+            byte[] chunk = new byte[buffer.readableByteCount()];
+            buffer.read(chunk);
+            feeder.feedInput(chunk, 0, chunk.length);
+            drain();
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    long finish() {
+        try (parser) {
+            feeder.endOfInput();
+            drain();
+            return reader.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            reader.onToken(parser, token);
+        }
+    }
+}
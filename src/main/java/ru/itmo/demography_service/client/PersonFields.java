@@ -0,0 +1,81 @@
+package ru.itmo.demography_service.client;
+
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+
+/**
+ * Mutable, reused view of the person currently being read by {@link PersonStreamReader}.
+ * Only the attributes the aggregations need are decoded; everything else is skipped.
+ * Instances must not be retained by a {@link PersonSink} past the {@code accept} call.
+ */
+public final class PersonFields {
+
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    long id;
+    long creationEpochSecond;
+    long coordinateX;
+    long coordinateY;
+    long height;
+    float weight;
+    Color hairColor;
+    Color eyeColor;
+    Country nationality;
+    String locationName;
+
+    void reset() {
+        id = UNKNOWN;
+        creationEpochSecond = UNKNOWN;
+        coordinateX = UNKNOWN;
+        coordinateY = UNKNOWN;
+        height = UNKNOWN;
+        weight = Float.NaN;
+        hairColor = null;
+        eyeColor = null;
+        nationality = null;
+        locationName = null;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public long creationEpochSecond() {
+        return creationEpochSecond;
+    }
+
+    public long coordinateX() {
+        return coordinateX;
+    }
+
+    public long coordinateY() {
+        return coordinateY;
+    }
+
+    public long height() {
+        return height;
+    }
+
+    /**
+     * Weight of the person, {@link Float#NaN} when the person has none.
+     */
+    public float weight() {
+        return weight;
+    }
+
+    public Color hairColor() {
+        return hairColor;
+    }
+
+    public Color eyeColor() {
+        return eyeColor;
+    }
+
+    public Country nationality() {
+        return nationality;
+    }
+
+    public String locationName() {
+        return locationName;
+    }
+}
@@ -1,8 +1,11 @@
 package ru.itmo.demography_service.client;
 
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import ru.itmo.demography_service.config.FeignConfig;
 import ru.itmo.demography_service.dto.PersonDTO;
 
@@ -18,6 +21,16 @@ public interface PersonServiceClient {
     @GetMapping("/persons?page=0&size=1000000000")
     List<PersonDTO> getAllPersons();
 
+    /**
+     * @param ifNoneMatch entity tag of the previously read population, or {@code null} to
+     *                    fetch unconditionally; a matching tag is answered with 304 and no body
+     */
+    @GetMapping("/persons?page=0&size=1000000000")
+    Response streamAllPersons(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch);
+
+    @GetMapping("/persons")
+    Response streamPersonsPage(@RequestParam("page") int page, @RequestParam("size") int size);
+
     @GetMapping("/persons/{id}")
     PersonDTO getPersonById(@PathVariable Integer id);
 
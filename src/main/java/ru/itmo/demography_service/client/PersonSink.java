@@ -0,0 +1,7 @@
+package ru.itmo.demography_service.client;
+
+@FunctionalInterface
+public interface PersonSink {
+
+    void accept(PersonFields person);
+}
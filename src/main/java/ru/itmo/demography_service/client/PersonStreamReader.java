@@ -0,0 +1,202 @@
+package ru.itmo.demography_service.client;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.exception.PersonServiceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+
+/**
+ * Token-by-token reader for the {@code /persons} array in any {@link PersonWireFormat}. Tokens
+ * are pushed through {@link #onToken(JsonParser, JsonToken)}, so the same state machine serves
+ * both blocking streams and non-blocking parsers fed chunk by chunk.
+ */
+public final class PersonStreamReader {
+
+    private static final Color[] COLORS = Color.values();
+    private static final Country[] COUNTRIES = Country.values();
+
+    private final PersonSink sink;
+    private final PersonFields person = new PersonFields();
+
+    private boolean started;
+    private int depth;
+    private String field;
+    private String nestedField;
+    private long count;
+
+    public PersonStreamReader(PersonSink sink) {
+        this.sink = sink;
+    }
+
+    public static long read(InputStream body, PersonSink sink) throws IOException {
+        return read(body, PersonWireFormat.JSON, sink);
+    }
+
+    public static long read(InputStream body, PersonWireFormat format, PersonSink sink) throws IOException {
+        PersonStreamReader reader = new PersonStreamReader(sink);
+        try (JsonParser parser = format.factory().createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                reader.onToken(parser, token);
+            }
+        }
+        return reader.finish();
+    }
+
+    public void onToken(JsonParser parser, JsonToken token) throws IOException {
+        if (depth == 0 && token != JsonToken.START_ARRAY) {
+            throw new PersonServiceException("Person service returned invalid data");
+        }
+        started = true;
+
+        switch (token) {
+            case START_ARRAY -> depth++;
+            case START_OBJECT -> {
+                if (depth == 1) {
+                    person.reset();
+                }
+                depth++;
+            }
+            case END_ARRAY -> depth--;
+            case END_OBJECT -> {
+                depth--;
+                if (depth == 1) {
+                    sink.accept(person);
+                    count++;
+                }
+            }
+            case FIELD_NAME -> {
+                if (depth == 2) {
+                    field = parser.currentName();
+                } else if (depth == 3) {
+                    nestedField = parser.currentName();
+                }
+            }
+            case VALUE_STRING -> {
+                if (depth == 2) {
+                    readValue(parser);
+                } else if (depth == 3 && "location".equals(field) && "name".equals(nestedField)) {
+                    person.locationName = parser.getText();
+                }
+            }
+            case VALUE_NUMBER_INT -> {
+                if (depth == 2) {
+                    switch (field) {
+                        case "id" -> person.id = parser.getLongValue();
+                        case "height" -> person.height = parser.getLongValue();
+                        case "weight" -> person.weight = parser.getFloatValue();
+                        default -> {
+                        }
+                    }
+                } else if (depth == 3 && "coordinates".equals(field)) {
+                    if ("x".equals(nestedField)) {
+                        person.coordinateX = parser.getLongValue();
+                    } else if ("y".equals(nestedField)) {
+                        person.coordinateY = parser.getLongValue();
+                    }
+                }
+            }
+            case VALUE_NUMBER_FLOAT -> {
+                if (depth == 2 && "weight".equals(field)) {
+                    person.weight = parser.getFloatValue();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    public long finish() {
+        if (!started) {
+            throw new PersonServiceException("Person service returned invalid data");
+        }
+        if (depth != 0) {
+            throw new PersonServiceException("Person service response ended unexpectedly");
+        }
+        return count;
+    }
+
+    private void readValue(JsonParser parser) throws IOException {
+        switch (field) {
+            case "hairColor" -> person.hairColor = match(COLORS, parser);
+            case "eyeColor" -> person.eyeColor = match(COLORS, parser);
+            case "nationality" -> person.nationality = match(COUNTRIES, parser);
+            case "creationDate" -> person.creationEpochSecond = parseEpochSecond(parser);
+            default -> {
+            }
+        }
+    }
+
+    private static <E extends Enum<E>> E match(E[] values, JsonParser parser) throws IOException {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() == length && regionMatches(name, text, offset)) {
+                return value;
+            }
+        }
+
+        throw new JsonParseException(parser, "Unknown " + values[0].getDeclaringClass().getSimpleName()
+                + " value '" + new String(text, offset, length) + "'");
+    }
+
+    /**
+     * Parses {@code yyyy-MM-dd}, optionally followed by {@code [T ]HH:mm[:ss[.SSS]]}, as UTC
+     * epoch seconds straight from the parser buffer.
+     */
+    private static long parseEpochSecond(JsonParser parser) throws IOException {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        try {
+            if (length < 10 || text[offset + 4] != '-' || text[offset + 7] != '-') {
+                throw new NumberFormatException();
+            }
+            long epochDay = LocalDate.of(
+                    digits(text, offset, 4), digits(text, offset + 5, 2), digits(text, offset + 8, 2)
+            ).toEpochDay();
+
+            int secondOfDay = 0;
+            if (length >= 16) {
+                secondOfDay = digits(text, offset + 11, 2) * 3600 + digits(text, offset + 14, 2) * 60;
+                if (length >= 19) {
+                    secondOfDay += digits(text, offset + 17, 2);
+                }
+            }
+            return epochDay * 86400 + secondOfDay;
+        } catch (RuntimeException e) {
+            throw new JsonParseException(parser, "Invalid creationDate '" + new String(text, offset, length) + "'");
+        }
+    }
+
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException();
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean regionMatches(String name, char[] text, int offset) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.itmo.demography_service.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.Locale;
+
+/**
+ * Encodings of the {@code /persons} array that {@link PersonStreamReader} can read. The binary
+ * formats carry the same token stream as JSON, so one state machine serves all of them.
+ */
+public enum PersonWireFormat {
+    JSON("application/json", new JsonFactory()),
+    SMILE("application/x-jackson-smile", new SmileFactory()),
+    CBOR("application/cbor", new CBORFactory());
+
+    private final String mediaType;
+    private final JsonFactory factory;
+
+    PersonWireFormat(String mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public JsonFactory factory() {
+        return factory;
+    }
+
+    /**
+     * Format of a response by its {@code Content-Type}; anything unrecognised is read as JSON.
+     */
+    public static PersonWireFormat of(String contentType) {
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            for (PersonWireFormat format : values()) {
+                if (type.startsWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.itmo.demography_service.client;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.IdentityCipherSuiteFilter;
+import io.netty.handler.ssl.JdkSslContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import ru.itmo.demography_service.exception.PersonServiceException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class ReactivePersonServiceClient {
+
+    private static final int PREFETCH_CHUNKS = 8;
+
+    private final WebClient webClient;
+
+    public ReactivePersonServiceClient(
+            WebClient.Builder webClientBuilder,
+            SSLContext personServiceSslContext,
+            @Value("${person-service.url:http://localhost:58123}") String personServiceUrl) {
+
+        JdkSslContext sslContext = new JdkSslContext(personServiceSslContext, true, null,
+                IdentityCipherSuiteFilter.INSTANCE, ApplicationProtocolConfig.DISABLED, ClientAuth.NONE, null, false);
+
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
+                .responseTimeout(Duration.ofSeconds(10))
+                .compress(true)
+                .secure(ssl -> ssl.sslContext(sslContext)
+                        .handlerConfigurator(handler -> disableHostnameVerification(handler.engine())));
+
+        this.webClient = webClientBuilder
+                .baseUrl(personServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    /**
+     * Streams {@code /persons} into a fresh sink, parsing each chunk as it arrives. Chunks are
+     * parsed off the Netty event loop and at most {@value #PREFETCH_CHUNKS} are buffered, so
+     * a slow consumer throttles the upstream read.
+     */
+    public <S extends PersonSink> Mono<S> streamAllPersons(Supplier<S> sinkFactory) {
+        return Mono.defer(() -> {
+            S sink = sinkFactory.get();
+            return webClient.get()
+                    .uri("/persons?page=0&size=1000000000")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .retrieve()
+                    .bodyToFlux(DataBuffer.class)
+                    .publishOn(Schedulers.parallel(), PREFETCH_CHUNKS)
+                    .reduce(new NonBlockingPersonStreamReader(sink), NonBlockingPersonStreamReader::feed)
+                    .map(reader -> {
+                        reader.finish();
+                        return sink;
+                    });
+        }).onErrorMap(e -> !(e instanceof PersonServiceException), e -> {
+            log.error("Failed to stream persons from Person Service", e);
+            return new PersonServiceException("Unable to retrieve person data from external service", e);
+        });
+    }
+
+    private static void disableHostnameVerification(SSLEngine engine) {
+        SSLParameters parameters = engine.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm(null);
+        engine.setSSLParameters(parameters);
+    }
+}
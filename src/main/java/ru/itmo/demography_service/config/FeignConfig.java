@@ -1,20 +1,74 @@
 package ru.itmo.demography_service.config;
 
+import feign.Capability;
 import feign.Client;
 import feign.Logger;
 import feign.Request;
+import feign.RequestInterceptor;
+import feign.Response;
+import feign.hc5.ApacheHttp5Client;
+import feign.okhttp.OkHttpClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.core.instrument.binder.okhttp3.OkHttpConnectionPoolMetrics;
+import okhttp3.ConnectionPool;
+import okhttp3.Protocol;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
-import org.apache.http.ssl.SSLContextBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.itmo.demography_service.client.CircuitBreakingClient;
+import ru.itmo.demography_service.client.DecompressingClient;
+import ru.itmo.demography_service.client.PersonWireFormat;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+import ru.itmo.demography_service.metrics.PersonServiceClientMetrics;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class FeignConfig {
 
+    private static final String TRANSPORT_PROPERTY = "person-service.http.transport";
+
+    @Value("${person-service.http.pool.max-total:64}")
+    private int poolMaxTotal;
+
+    @Value("${person-service.http.pool.max-per-route:32}")
+    private int poolMaxPerRoute;
+
+    @Value("${person-service.http.pool.keep-alive-ms:60000}")
+    private long poolKeepAliveMs;
+
+    @Value("${person-service.http.compression.encodings:gzip}")
+    private List<String> compressionEncodings;
+
+    @Value("${person-service.http.formats:JSON}")
+    private List<PersonWireFormat> wireFormats;
+
+    @Value("${person-service.http.tls.session-cache-size:256}")
+    private int tlsSessionCacheSize;
+
+    @Value("${person-service.http.tls.session-timeout-s:3600}")
+    private int tlsSessionTimeoutSeconds;
+
     @Bean
     Logger.Level feignLoggerLevel() {
         return Logger.Level.FULL;
@@ -30,21 +84,164 @@ public class FeignConfig {
     }
 
     @Bean
-    public Client feignClient() {
+    public Capability personServiceClientMetrics(DemographyMetrics demographyMetrics) {
+        return new PersonServiceClientMetrics(demographyMetrics);
+    }
+
+    /**
+     * Offers the configured wire formats, most preferred first, on the methods whose raw
+     * {@link Response} is read by {@code PersonStreamReader}; databound methods keep JSON.
+     */
+    @Bean
+    public RequestInterceptor personStreamAcceptInterceptor() {
+        StringBuilder accept = new StringBuilder();
+        for (int i = 0; i < wireFormats.size(); i++) {
+            if (i > 0) {
+                accept.append(", ");
+            }
+            accept.append(wireFormats.get(i).mediaType());
+            if (i > 0) {
+                accept.append(";q=").append(Math.max(1, 10 - i) / 10.0);
+            }
+        }
+        String acceptHeader = accept.toString();
+
+        return template -> {
+            if (!acceptHeader.isEmpty() && template.methodMetadata() != null
+                    && template.methodMetadata().returnType() == Response.class) {
+                template.removeHeader("Accept");
+                template.header("Accept", acceptHeader);
+            }
+        };
+    }
+
+    /**
+     * Trusts whatever the JVM trusts plus self-signed certificates. Exposed on its own because
+     * OkHttp needs the trust manager its SSL socket factory was built with.
+     */
+    @Bean
+    public X509TrustManager personServiceTrustManager() {
+        X509TrustManager system = systemTrustManager();
+        return new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+                system.checkClientTrusted(chain, authType);
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+                if (chain.length != 1) {
+                    system.checkServerTrusted(chain, authType);
+                }
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return system.getAcceptedIssuers();
+            }
+        };
+    }
+
+    @Bean
+    public SSLContext personServiceSslContext(X509TrustManager personServiceTrustManager) {
         try {
-            SSLContext sslContext = SSLContextBuilder
-                    .create()
-                    .loadTrustMaterial(new TrustSelfSignedStrategy())
-                    .build();
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{personServiceTrustManager}, null);
 
-            SSLSocketFactory socketFactory = sslContext.getSocketFactory();
+            sslContext.getClientSessionContext().setSessionCacheSize(tlsSessionCacheSize);
+            sslContext.getClientSessionContext().setSessionTimeout(tlsSessionTimeoutSeconds);
 
-            return new Client.Default(
-                    socketFactory,
-                    NoopHostnameVerifier.INSTANCE
-            );
+            return sslContext;
+        } catch (Exception e) {
+            throw new RuntimeException("Error config SSL for Feign Client", e);
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "default", matchIfMissing = true)
+    public Client feignClient(SSLContext personServiceSslContext, DemographyMetrics demographyMetrics,
+                              CircuitBreaker personServiceCircuitBreaker) {
+        SSLSocketFactory socketFactory = personServiceSslContext.getSocketFactory();
+
+        return decorate(new Client.Default(
+                socketFactory,
+                NoopHostnameVerifier.INSTANCE
+        ), demographyMetrics, personServiceCircuitBreaker);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "pooled")
+    public PoolingHttpClientConnectionManager personServiceConnectionManager(
+            SSLContext personServiceSslContext, MeterRegistry meterRegistry) {
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
+                        .setSslContext(personServiceSslContext)
+                        .setHostnameVerifier(org.apache.hc.client5.http.ssl.NoopHostnameVerifier.INSTANCE)
+                        .build())
+                .setMaxConnTotal(poolMaxTotal)
+                .setMaxConnPerRoute(poolMaxPerRoute)
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "person-service")
+                .bindTo(meterRegistry);
+
+        return connectionManager;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "pooled")
+    public Client pooledFeignClient(PoolingHttpClientConnectionManager personServiceConnectionManager,
+                                    DemographyMetrics demographyMetrics,
+                                    CircuitBreaker personServiceCircuitBreaker) {
+        return decorate(new ApacheHttp5Client(HttpClients.custom()
+                .setConnectionManager(personServiceConnectionManager)
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(poolKeepAliveMs))
+                .evictIdleConnections(TimeValue.ofMilliseconds(poolKeepAliveMs))
+                .evictExpiredConnections()
+                .disableContentCompression()
+                .build()), demographyMetrics, personServiceCircuitBreaker);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "http2")
+    public ConnectionPool personServiceConnectionPool(MeterRegistry meterRegistry) {
+        ConnectionPool connectionPool = new ConnectionPool(poolMaxTotal, poolKeepAliveMs, TimeUnit.MILLISECONDS);
+
+        new OkHttpConnectionPoolMetrics(connectionPool, "person-service.connection.pool",
+                Tags.empty(), poolMaxTotal)
+                .bindTo(meterRegistry);
+
+        return connectionPool;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "http2")
+    public Client http2FeignClient(SSLContext personServiceSslContext, X509TrustManager personServiceTrustManager,
+                                   ConnectionPool personServiceConnectionPool,
+                                   DemographyMetrics demographyMetrics,
+                                   CircuitBreaker personServiceCircuitBreaker) {
+        return decorate(new OkHttpClient(new okhttp3.OkHttpClient.Builder()
+                .sslSocketFactory(personServiceSslContext.getSocketFactory(), personServiceTrustManager)
+                .hostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                .connectionPool(personServiceConnectionPool)
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .build()), demographyMetrics, personServiceCircuitBreaker);
+    }
+
+    private Client decorate(Client transport, DemographyMetrics demographyMetrics, CircuitBreaker circuitBreaker) {
+        return new CircuitBreakingClient(
+                new DecompressingClient(transport, compressionEncodings, demographyMetrics),
+                circuitBreaker);
+    }
+
+    private static X509TrustManager systemTrustManager() {
+        try {
+            TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            factory.init((KeyStore) null);
+            return (X509TrustManager) factory.getTrustManagers()[0];
         } catch (Exception e) {
             throw new RuntimeException("Error config SSL for Feign Client", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,27 @@
 package ru.itmo.demography_service.config;
 
+import lombok.RequiredArgsConstructor;
 import org.apache.catalina.Context;
 import org.apache.catalina.connector.Connector;
 import org.apache.tomcat.util.descriptor.web.SecurityCollection;
 import org.apache.tomcat.util.descriptor.web.SecurityConstraint;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.servlet.server.ServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 @Configuration
+@ConditionalOnProperty(name = "server.ssl.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
 public class HttpsConfig {
 
+    private final Environment environment;
+
     @Value("${http.redirect.port:58124}")
     private int httpRedirectPort;
 
@@ -42,6 +51,9 @@ public class HttpsConfig {
         connector.setPort(httpRedirectPort);
         connector.setSecure(false);
         connector.setRedirectPort(httpRedirectPort);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            connector.getProtocolHandler().setExecutor(new VirtualThreadExecutor("tomcat-redirect-"));
+        }
         return connector;
     }
 }
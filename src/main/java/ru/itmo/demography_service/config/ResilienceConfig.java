@@ -0,0 +1,55 @@
+package ru.itmo.demography_service.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ResilienceConfig {
+
+    @Value("${person-service.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${person-service.circuit-breaker.slow-call-duration-threshold-ms:5000}")
+    private long slowCallDurationMs;
+
+    @Value("${person-service.circuit-breaker.slow-call-rate-threshold:100}")
+    private float slowCallRateThreshold;
+
+    @Value("${person-service.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${person-service.circuit-breaker.minimum-number-of-calls:5}")
+    private int minimumNumberOfCalls;
+
+    @Value("${person-service.circuit-breaker.wait-duration-in-open-state-ms:30000}")
+    private long waitInOpenStateMs;
+
+    @Value("${person-service.circuit-breaker.permitted-calls-in-half-open-state:1}")
+    private int permittedCallsInHalfOpenState;
+
+    @Bean
+    public CircuitBreaker personServiceCircuitBreaker(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(waitInOpenStateMs))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build());
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+
+        return circuitBreakerRegistry.circuitBreaker("person-service");
+    }
+}
@@ -0,0 +1,32 @@
+package ru.itmo.demography_service.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    private static final String[] LAZY_PACKAGES = {"org.springdoc.", "io.swagger."};
+
+    /**
+     * With {@code spring.main.lazy-initialization=true} only the springdoc and Swagger beans
+     * are deferred until the API docs are first requested. Everything else, including the
+     * scheduled refresh and the snapshot restore, still starts eagerly.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter onlySpringdocIsLazy() {
+        return (beanName, beanDefinition, beanType) -> {
+            if (beanType == null) {
+                return true;
+            }
+            String className = beanType.getName();
+            for (String lazyPackage : LAZY_PACKAGES) {
+                if (className.startsWith(lazyPackage)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+}
@@ -8,17 +8,44 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.itmo.demography_service.client.PersonWireFormat;
+import ru.itmo.demography_service.dto.BatchStatsRequestDTO;
+import ru.itmo.demography_service.dto.BatchStatsResponseDTO;
 import ru.itmo.demography_service.dto.ErrorDTO;
+import ru.itmo.demography_service.dto.ErrorsDto;
+import ru.itmo.demography_service.dto.FilterQueryRequestDTO;
+import ru.itmo.demography_service.dto.FilterQueryResponseDTO;
+import ru.itmo.demography_service.dto.HairColorDistributionDTO;
 import ru.itmo.demography_service.dto.HairColorStatsDTO;
+import ru.itmo.demography_service.dto.HairColorTrendDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorMatrixDTO;
 import ru.itmo.demography_service.dto.NationalityEyeColorStatsDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorTrendDTO;
+import ru.itmo.demography_service.dto.RegionHairColorDistributionDTO;
+import ru.itmo.demography_service.dto.TopLocationsDTO;
 import ru.itmo.demography_service.dto.enums.Color;
 import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.TimeBucket;
 import ru.itmo.demography_service.exception.InvalidParameterException;
 import ru.itmo.demography_service.service.DemographyService;
+import ru.itmo.demography_service.service.PopulationSnapshot;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/demography")
@@ -27,11 +54,17 @@ import ru.itmo.demography_service.service.DemographyService;
 @Tag(name = "Demography", description = "Demographic analysis of population")
 public class DemographyController {
 
+    static final String POPULATION_VERSION_HEADER = "X-Population-Version";
+    static final String POPULATION_AGE_HEADER = "X-Population-Age";
+    static final String POPULATION_STALE_HEADER = "X-Population-Stale";
+
     private final DemographyService demographyService;
 
     @Operation(
             summary = "Get percentage of people by hair color",
-            description = "Calculate percentage ratio of people with specified hair color relative to total population"
+            description = "Calculate percentage ratio of people with specified hair color relative to total population. "
+                    + "With approximate=true the percentage is estimated from the population sample and an "
+                    + "estimate object reports the sample size and confidence interval"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Statistics calculated successfully",
@@ -49,6 +82,7 @@ public class DemographyController {
                                     """
                             ))
             ),
+            @ApiResponse(responseCode = "304", description = "Population unchanged since the If-None-Match entity tag"),
             @ApiResponse(responseCode = "400", description = "Invalid hair color parameter",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorDTO.class),
@@ -85,17 +119,30 @@ public class DemographyController {
             @Parameter(description = "Hair color", required = true,
                     schema = @Schema(implementation = Color.class,
                             allowableValues = {"GREEN", "BLUE", "ORANGE", "BROWN"}))
-            @PathVariable Color hairColor) {
+            @PathVariable Color hairColor,
+            @Parameter(description = "Estimate from a uniform sample of the population and report a confidence "
+                    + "interval instead of counting exactly")
+            @RequestParam(defaultValue = "false") boolean approximate,
+            WebRequest webRequest) {
 
         log.info("Received request for hair color percentage: {}", hairColor);
 
-        HairColorStatsDTO stats = demographyService.calculateHairColorPercentage(hairColor);
-        return ResponseEntity.ok(stats);
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        String etag = entityTag(snapshot, webRequest);
+        ResponseEntity<HairColorStatsDTO> notModified = notModified(snapshot, etag, webRequest);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        HairColorStatsDTO stats = demographyService.calculateHairColorPercentage(snapshot, hairColor, approximate);
+        return ok(snapshot).eTag(etag).body(stats);
     }
 
     @Operation(
             summary = "Get statistics by nationality and eye color",
-            description = "Count the number of people with specific eye color within specified nationality"
+            description = "Count the number of people with specific eye color within specified nationality. "
+                    + "With approximate=true the counts are estimated from the population sample and an "
+                    + "estimate object reports the sample size and confidence interval"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Statistics calculated successfully",
@@ -113,6 +160,7 @@ public class DemographyController {
                                     """
                             ))
             ),
+            @ApiResponse(responseCode = "304", description = "Population unchanged since the If-None-Match entity tag"),
             @ApiResponse(responseCode = "400", description = "Invalid nationality or eye color parameters",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorDTO.class),
@@ -165,13 +213,589 @@ public class DemographyController {
             @Parameter(description = "Eye color", required = true,
                     schema = @Schema(implementation = Color.class,
                             allowableValues = {"GREEN", "BLUE", "ORANGE", "BROWN"}))
-            @PathVariable Color eyeColor) {
+            @PathVariable Color eyeColor,
+            @Parameter(description = "Estimate from a uniform sample of the population and report a confidence "
+                    + "interval instead of counting exactly")
+            @RequestParam(defaultValue = "false") boolean approximate,
+            WebRequest webRequest) {
 
         log.info("Received request for statistics: {} - {}", nationality, eyeColor);
 
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        String etag = entityTag(snapshot, webRequest);
+        ResponseEntity<NationalityEyeColorStatsDTO> notModified = notModified(snapshot, etag, webRequest);
+        if (notModified != null) {
+            return notModified;
+        }
+
         NationalityEyeColorStatsDTO stats = demographyService
-                .calculateNationalityEyeColorStats(nationality, eyeColor);
+                .calculateNationalityEyeColorStats(snapshot, nationality, eyeColor, approximate);
+
+        return ok(snapshot).eTag(etag).body(stats);
+    }
+
+    @Operation(
+            summary = "Get the full hair color distribution",
+            description = "Count and percentage of people for every hair color, computed in one pass"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Distribution calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = HairColorDistributionDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Hair Color Distribution",
+                                    value = """
+                                    {
+                                        "populationVersion": 42,
+                                        "totalPersons": 100,
+                                        "counts": {"GREEN": 20, "BLUE": 23, "ORANGE": 17, "BROWN": 40},
+                                        "percentages": {"GREEN": 20.0, "BLUE": 23.0, "ORANGE": 17.0, "BROWN": 40.0},
+                                        "unknownCount": 0
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "304", description = "Population unchanged since the If-None-Match entity tag"),
+            @ApiResponse(responseCode = "503", description = "Person service unavailable",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class))
+            )
+    })
+    @GetMapping("/hair-color/distribution")
+    public ResponseEntity<HairColorDistributionDTO> getHairColorDistribution(WebRequest webRequest) {
+        log.info("Received request for hair color distribution");
+
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        String etag = entityTag(snapshot, webRequest);
+        ResponseEntity<HairColorDistributionDTO> notModified = notModified(snapshot, etag, webRequest);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        HairColorDistributionDTO distribution = demographyService.calculateHairColorDistribution(snapshot);
+        return ok(snapshot).eTag(etag).body(distribution);
+    }
+
+    @Operation(
+            summary = "Get the nationality x eye color matrix",
+            description = "Number of people for every nationality and eye color pair, with row and column totals"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Matrix calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = NationalityEyeColorMatrixDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Nationality Eye Color Matrix",
+                                    value = """
+                                    {
+                                        "populationVersion": 42,
+                                        "nationalities": ["FRANCE", "SPAIN", "INDIA", "THAILAND", "SOUTH_KOREA"],
+                                        "eyeColors": ["GREEN", "BLUE", "ORANGE", "BROWN"],
+                                        "counts": [[5, 3, 1, 11], [15, 10, 2, 18], [1, 0, 0, 9], [2, 1, 0, 7], [0, 4, 1, 10]],
+                                        "nationalityTotals": [20, 45, 10, 10, 15],
+                                        "eyeColorTotals": [23, 18, 4, 55],
+                                        "totalPersons": 100
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "304", description = "Population unchanged since the If-None-Match entity tag"),
+            @ApiResponse(responseCode = "503", description = "Person service unavailable",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class))
+            )
+    })
+    @GetMapping("/nationality/eye-color/matrix")
+    public ResponseEntity<NationalityEyeColorMatrixDTO> getNationalityEyeColorMatrix(WebRequest webRequest) {
+        log.info("Received request for nationality eye color matrix");
+
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        String etag = entityTag(snapshot, webRequest);
+        ResponseEntity<NationalityEyeColorMatrixDTO> notModified = notModified(snapshot, etag, webRequest);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        NationalityEyeColorMatrixDTO matrix = demographyService.calculateNationalityEyeColorMatrix(snapshot);
+        return ok(snapshot).eTag(etag).body(matrix);
+    }
+
+    @Operation(
+            summary = "Get the hair color share over time",
+            description = "Percentage of people with the hair color among those created in each day, week or month "
+                    + "of the date range; dates are UTC creation dates and both bounds are inclusive"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Trend calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = HairColorTrendDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Hair Color Trend",
+                                    value = """
+                                    {
+                                        "populationVersion": 42,
+                                        "hairColor": "BLUE",
+                                        "bucket": "MONTH",
+                                        "points": [
+                                            {"from": "2024-01-10", "to": "2024-01-31", "totalPersons": 70, "personsWithHairColor": 14, "percentage": 20.0},
+                                            {"from": "2024-02-01", "to": "2024-02-15", "totalPersons": 30, "personsWithHairColor": 9, "percentage": 30.0}
+                                        ]
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "304", description = "Population unchanged since the If-None-Match entity tag"),
+            @ApiResponse(responseCode = "400", description = "Invalid hair color or bucket, or missing or invalid date range",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Inverted Range",
+                                    value = """
+                                    {
+                                        "error": "INVALID_REQUEST_PARAMETER",
+                                        "message": "Start date 2024-03-01 is after end date 2024-01-01",
+                                        "timestamp": "2025-09-19T09:32:19.479Z",
+                                        "path": "/demography/trends/hair-color/BLUE"
+                                    }
+                                    """
+                            ))
+            )
+    })
+    @GetMapping("/trends/hair-color/{hairColor}")
+    public ResponseEntity<HairColorTrendDTO> getHairColorTrend(
+            @Parameter(description = "Hair color", required = true,
+                    schema = @Schema(implementation = Color.class,
+                            allowableValues = {"GREEN", "BLUE", "ORANGE", "BROWN"}))
+            @PathVariable Color hairColor,
+            @Parameter(description = "First creation date, inclusive", required = true, example = "2024-01-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last creation date, inclusive", required = true, example = "2024-12-31")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Bucket size")
+            @RequestParam(defaultValue = "DAY") TimeBucket bucket,
+            WebRequest webRequest) {
+
+        log.info("Received request for hair color trend: {} from {} to {} by {}", hairColor, from, to, bucket);
+
+        demographyService.validateTrendRange(from, to, bucket);
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        String etag = entityTag(snapshot, webRequest);
+        ResponseEntity<HairColorTrendDTO> notModified = notModified(snapshot, etag, webRequest);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        HairColorTrendDTO trend = demographyService.calculateHairColorTrend(snapshot, hairColor, from, to, bucket);
+        return ok(snapshot).eTag(etag).body(trend);
+    }
+
+    @Operation(
+            summary = "Get nationality and eye color counts over time",
+            description = "Number of people with the eye color within the nationality among those created in each "
+                    + "day, week or month of the date range; dates are UTC creation dates and both bounds are inclusive"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Trend calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = NationalityEyeColorTrendDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Nationality Eye Color Trend",
+                                    value = """
+                                    {
+                                        "populationVersion": 42,
+                                        "nationality": "SPAIN",
+                                        "eyeColor": "GREEN",
+                                        "bucket": "WEEK",
+                                        "points": [
+                                            {"from": "2024-01-01", "to": "2024-01-07", "count": 4, "totalPersonsInNationality": 12},
+                                            {"from": "2024-01-08", "to": "2024-01-10", "count": 1, "totalPersonsInNationality": 5}
+                                        ]
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "304", description = "Population unchanged since the If-None-Match entity tag"),
+            @ApiResponse(responseCode = "400", description = "Invalid nationality, eye color or bucket, or missing or invalid date range",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class))
+            )
+    })
+    @GetMapping("/trends/nationality/{nationality}/eye-color/{eyeColor}")
+    public ResponseEntity<NationalityEyeColorTrendDTO> getNationalityEyeColorTrend(
+            @Parameter(description = "Nationality", required = true,
+                    schema = @Schema(implementation = Country.class,
+                            allowableValues = {"FRANCE", "SPAIN", "INDIA", "THAILAND", "SOUTH_KOREA"}))
+            @PathVariable Country nationality,
+            @Parameter(description = "Eye color", required = true,
+                    schema = @Schema(implementation = Color.class,
+                            allowableValues = {"GREEN", "BLUE", "ORANGE", "BROWN"}))
+            @PathVariable Color eyeColor,
+            @Parameter(description = "First creation date, inclusive", required = true, example = "2024-01-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last creation date, inclusive", required = true, example = "2024-12-31")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Bucket size")
+            @RequestParam(defaultValue = "DAY") TimeBucket bucket,
+            WebRequest webRequest) {
+
+        log.info("Received request for nationality eye color trend: {} - {} from {} to {} by {}",
+                nationality, eyeColor, from, to, bucket);
+
+        demographyService.validateTrendRange(from, to, bucket);
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        String etag = entityTag(snapshot, webRequest);
+        ResponseEntity<NationalityEyeColorTrendDTO> notModified = notModified(snapshot, etag, webRequest);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        NationalityEyeColorTrendDTO trend = demographyService
+                .calculateNationalityEyeColorTrend(snapshot, nationality, eyeColor, from, to, bucket);
+        return ok(snapshot).eTag(etag).body(trend);
+    }
+
+    @Operation(
+            summary = "Get the hair color distribution inside a region",
+            description = "Count and percentage of people for every hair color among those whose coordinates lie in "
+                    + "the bounding box. The box is widened to whole grid cells; the response reports the box "
+                    + "actually covered"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Distribution calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RegionHairColorDistributionDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Region Hair Color Distribution",
+                                    value = """
+                                    {
+                                        "region": {"minX": -200, "minY": -100, "maxX": 199, "maxY": 99},
+                                        "cellsTouched": 8,
+                                        "distribution": {
+                                            "populationVersion": 42,
+                                            "totalPersons": 100,
+                                            "counts": {"GREEN": 20, "BLUE": 23, "ORANGE": 17, "BROWN": 40},
+                                            "percentages": {"GREEN": 20.0, "BLUE": 23.0, "ORANGE": 17.0, "BROWN": 40.0},
+                                            "unknownCount": 0
+                                        }
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "304", description = "Population unchanged since the If-None-Match entity tag"),
+            @ApiResponse(responseCode = "400", description = "Missing or inverted bounds",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Inverted Bounds",
+                                    value = """
+                                    {
+                                        "error": "INVALID_REQUEST_PARAMETER",
+                                        "message": "minX 100 is greater than maxX -100",
+                                        "timestamp": "2025-09-19T09:32:19.479Z",
+                                        "path": "/demography/regions/hair-color/distribution"
+                                    }
+                                    """
+                            ))
+            )
+    })
+    @GetMapping("/regions/hair-color/distribution")
+    public ResponseEntity<RegionHairColorDistributionDTO> getRegionHairColorDistribution(
+            @Parameter(description = "Smallest x coordinate, inclusive", required = true, example = "-150")
+            @RequestParam long minX,
+            @Parameter(description = "Smallest y coordinate, inclusive", required = true, example = "-50")
+            @RequestParam long minY,
+            @Parameter(description = "Largest x coordinate, inclusive", required = true, example = "150")
+            @RequestParam long maxX,
+            @Parameter(description = "Largest y coordinate, inclusive", required = true, example = "50")
+            @RequestParam long maxY,
+            WebRequest webRequest) {
+
+        log.info("Received request for region hair color distribution: x {}..{}, y {}..{}", minX, maxX, minY, maxY);
+
+        demographyService.validateBoundingBox(minX, minY, maxX, maxY);
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        String etag = entityTag(snapshot, webRequest);
+        ResponseEntity<RegionHairColorDistributionDTO> notModified = notModified(snapshot, etag, webRequest);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        RegionHairColorDistributionDTO distribution = demographyService
+                .calculateRegionHairColorDistribution(snapshot, minX, minY, maxX, maxY);
+        return ok(snapshot).eTag(etag).body(distribution);
+    }
+
+    @Operation(
+            summary = "Get the locations with the most people of a nationality",
+            description = "Rank location names by the number of people of the nationality living there"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ranking calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = TopLocationsDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Top Locations",
+                                    value = """
+                                    {
+                                        "populationVersion": 42,
+                                        "nationality": "SPAIN",
+                                        "locations": [
+                                            {"location": "Madrid", "count": 42},
+                                            {"location": "Barcelona", "count": 17}
+                                        ]
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "304", description = "Population unchanged since the If-None-Match entity tag"),
+            @ApiResponse(responseCode = "400", description = "Invalid nationality or limit",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class))
+            )
+    })
+    @GetMapping("/regions/nationality/{nationality}/top-locations")
+    public ResponseEntity<TopLocationsDTO> getTopLocations(
+            @Parameter(description = "Nationality", required = true,
+                    schema = @Schema(implementation = Country.class,
+                            allowableValues = {"FRANCE", "SPAIN", "INDIA", "THAILAND", "SOUTH_KOREA"}))
+            @PathVariable Country nationality,
+            @Parameter(description = "Number of locations to return")
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest webRequest) {
+
+        log.info("Received request for top {} locations: {}", limit, nationality);
+
+        demographyService.validateTopLocationsLimit(limit);
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        String etag = entityTag(snapshot, webRequest);
+        ResponseEntity<TopLocationsDTO> notModified = notModified(snapshot, etag, webRequest);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        TopLocationsDTO topLocations = demographyService.calculateTopLocations(snapshot, nationality, limit);
+        return ok(snapshot).eTag(etag).body(topLocations);
+    }
+
+    @Operation(
+            summary = "Evaluate a batch of statistics queries",
+            description = "Evaluate hair color and nationality/eye color queries together against one population "
+                    + "version; results are returned in request order"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Statistics calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BatchStatsResponseDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Batch Statistics",
+                                    value = """
+                                    {
+                                        "populationVersion": 42,
+                                        "results": [
+                                            {
+                                                "type": "HAIR_COLOR_PERCENTAGE",
+                                                "hairColorStats": {
+                                                    "hairColor": "BLUE",
+                                                    "percentage": 23.0,
+                                                    "totalPersons": 100,
+                                                    "personsWithHairColor": 23
+                                                }
+                                            },
+                                            {
+                                                "type": "NATIONALITY_EYE_COLOR",
+                                                "nationalityEyeColorStats": {
+                                                    "nationality": "SPAIN",
+                                                    "eyeColor": "GREEN",
+                                                    "count": 15,
+                                                    "totalPersonsInNationality": 45
+                                                }
+                                            }
+                                        ]
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "400", description = "Query is missing a parameter required by its type",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Missing Parameter",
+                                    value = """
+                                    {
+                                        "error": "INVALID_REQUEST_PARAMETER",
+                                        "message": "Hair color is required for HAIR_COLOR_PERCENTAGE query #0",
+                                        "timestamp": "2025-09-19T09:32:19.479Z",
+                                        "path": "/demography/stats/batch"
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "422", description = "Request body validation failed",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsDto.class))
+            )
+    })
+    @PostMapping("/stats/batch")
+    public ResponseEntity<BatchStatsResponseDTO> getBatchStats(
+            @Valid @RequestBody BatchStatsRequestDTO request) {
+
+        log.info("Received batch statistics request with {} queries", request.queries().size());
+
+        demographyService.validateBatch(request.queries());
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        BatchStatsResponseDTO stats = demographyService.calculateBatch(snapshot, request.queries());
+        return ok(snapshot).body(stats);
+    }
+
+    @Operation(
+            summary = "Count people matching an attribute filter",
+            description = "Evaluate an arbitrary combination of allOf / anyOf / not filters over nationality, "
+                    + "hair color and eye color, and return the matching count and percentage"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Filter evaluated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = FilterQueryResponseDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Filter Query",
+                                    value = """
+                                    {
+                                        "populationVersion": 42,
+                                        "totalPersons": 100,
+                                        "matchingPersons": 12,
+                                        "percentage": 12.0
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "400", description = "Filter node is malformed or uses an unknown value",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Unknown Value",
+                                    value = """
+                                    {
+                                        "error": "INVALID_REQUEST_PARAMETER",
+                                        "message": "Invalid value 'PURPLE' for attribute HAIR_COLOR. Expected one of: [GREEN, BLUE, ORANGE, BROWN]",
+                                        "timestamp": "2025-09-19T09:32:19.479Z",
+                                        "path": "/demography/query"
+                                    }
+                                    """
+                            ))
+            ),
+            @ApiResponse(responseCode = "422", description = "Request body validation failed",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorsDto.class))
+            ),
+            @ApiResponse(responseCode = "501", description = "The columnar store is disabled on this instance",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class),
+                            examples = @ExampleObject(
+                                    name = "Columnar Store Disabled",
+                                    value = """
+                                    {
+                                        "error": "FEATURE_DISABLED",
+                                        "message": "Filter queries require the columnar store (demography.store.columnar=true)",
+                                        "timestamp": "2025-09-19T09:32:19.479Z",
+                                        "path": "/demography/query"
+                                    }
+                                    """
+                            ))
+            )
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            content = @Content(mediaType = "application/json",
+                    examples = @ExampleObject(
+                            name = "Spanish or Indian, not brown-haired, green-eyed",
+                            value = """
+                            {
+                                "filter": {
+                                    "allOf": [
+                                        {"attribute": "NATIONALITY", "in": ["SPAIN", "INDIA"]},
+                                        {"attribute": "HAIR_COLOR", "notIn": ["BROWN"]},
+                                        {"attribute": "EYE_COLOR", "in": ["GREEN"]}
+                                    ]
+                                }
+                            }
+                            """
+                    ))
+    )
+    @PostMapping("/query")
+    public ResponseEntity<FilterQueryResponseDTO> getFilterQuery(
+            @Valid @RequestBody FilterQueryRequestDTO request) {
+
+        log.info("Received filter query request");
+
+        demographyService.validateFilter(request.filter());
+        PopulationSnapshot snapshot = demographyService.currentSnapshot();
+        FilterQueryResponseDTO result = demographyService.calculateFilterQuery(snapshot, request.filter());
+        return ok(snapshot).body(result);
+    }
+
+    /**
+     * Entity tag of the representation this request negotiates. The JSON, Smile and CBOR
+     * bodies of one population version differ, so each gets its own tag, and a cache holding
+     * several of them under {@code Vary: Accept} can tell which one a 304 confirms.
+     */
+    private String entityTag(PopulationSnapshot snapshot, WebRequest webRequest) {
+        String[] accept = webRequest.getHeaderValues(HttpHeaders.ACCEPT);
+        PersonWireFormat format = representation(accept == null ? null : String.join(",", accept));
+        return demographyService.entityTag(snapshot, format.name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Format the message converters will answer {@code accept} with: the most preferred
+     * acceptable type wins, and JSON goes before Smile and CBOR when several match equally,
+     * as {@link ru.itmo.demography_service.config.WebConfig} orders the converters.
+     */
+    static PersonWireFormat representation(String accept) {
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return PersonWireFormat.JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+
+        for (MediaType mediaType : acceptable) {
+            for (PersonWireFormat format : PersonWireFormat.values()) {
+                if (mediaType.isCompatibleWith(MediaType.parseMediaType(format.mediaType()))) {
+                    return format;
+                }
+            }
+        }
+        return PersonWireFormat.JSON;
+    }
+
+    /**
+     * Answers 304 when {@code If-None-Match} already holds {@code etag}, with the headers a 200
+     * for the same snapshot would carry, so a revalidating cache refreshes them as well.
+     *
+     * @return the 304 response, or {@code null} when the request has to be answered in full
+     */
+    private <T> ResponseEntity<T> notModified(PopulationSnapshot snapshot, String etag, WebRequest webRequest) {
+        if (!webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return respond(HttpStatus.NOT_MODIFIED, snapshot).eTag(etag).build();
+    }
+
+    private ResponseEntity.BodyBuilder ok(PopulationSnapshot snapshot) {
+        return respond(HttpStatus.OK, snapshot);
+    }
 
-        return ResponseEntity.ok(stats);
+    /**
+     * Starts a response that tells the client which population version answered it and
+     * how old that version is, so a result served from a stale snapshot while Person Service
+     * is unavailable can be told apart from a fresh one. The body format follows
+     * {@code Accept}, which caches learn from {@code Vary}.
+     */
+    private ResponseEntity.BodyBuilder respond(HttpStatus status, PopulationSnapshot snapshot) {
+        return ResponseEntity.status(status)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .header(POPULATION_VERSION_HEADER, Long.toString(snapshot.version()))
+                .header(POPULATION_AGE_HEADER, Long.toString(snapshot.age().toSeconds()))
+                .header(POPULATION_STALE_HEADER, Boolean.toString(demographyService.isStale(snapshot)));
     }
-}
\ No newline at end of file
+}
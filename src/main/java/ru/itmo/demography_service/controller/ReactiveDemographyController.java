@@ -0,0 +1,93 @@
+package ru.itmo.demography_service.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import ru.itmo.demography_service.dto.ErrorDTO;
+import ru.itmo.demography_service.dto.HairColorStatsDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorStatsDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.service.ReactiveDemographyService;
+
+@RestController
+@RequestMapping("/reactive/demography")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Demography (reactive)",
+        description = "Non-blocking demographic analysis computed while the population streams from Person Service")
+public class ReactiveDemographyController {
+
+    private final ReactiveDemographyService reactiveDemographyService;
+
+    @Operation(
+            summary = "Get percentage of people by hair color (non-blocking)",
+            description = "Stream the population from Person Service and calculate the percentage of people "
+                    + "with specified hair color as the data arrives"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Statistics calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = HairColorStatsDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid hair color parameter",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class))),
+            @ApiResponse(responseCode = "503", description = "Person service unavailable",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class)))
+    })
+    @GetMapping("/hair-color/{hairColor}/percentage")
+    public Mono<HairColorStatsDTO> getHairColorPercentage(
+            @Parameter(description = "Hair color", required = true,
+                    schema = @Schema(implementation = Color.class,
+                            allowableValues = {"GREEN", "BLUE", "ORANGE", "BROWN"}))
+            @PathVariable Color hairColor) {
+
+        log.info("Received reactive request for hair color percentage: {}", hairColor);
+
+        return reactiveDemographyService.calculateHairColorPercentage(hairColor);
+    }
+
+    @Operation(
+            summary = "Get statistics by nationality and eye color (non-blocking)",
+            description = "Stream the population from Person Service and count the people with specific eye color "
+                    + "within specified nationality as the data arrives"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Statistics calculated successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = NationalityEyeColorStatsDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid nationality or eye color parameters",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class))),
+            @ApiResponse(responseCode = "503", description = "Person service unavailable",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDTO.class)))
+    })
+    @GetMapping("/nationality/{nationality}/eye-color/{eyeColor}")
+    public Mono<NationalityEyeColorStatsDTO> getNationalityEyeColorStats(
+            @Parameter(description = "Nationality", required = true,
+                    schema = @Schema(implementation = Country.class,
+                            allowableValues = {"FRANCE", "SPAIN", "INDIA", "THAILAND", "SOUTH_KOREA"}))
+            @PathVariable Country nationality,
+            @Parameter(description = "Eye color", required = true,
+                    schema = @Schema(implementation = Color.class,
+                            allowableValues = {"GREEN", "BLUE", "ORANGE", "BROWN"}))
+            @PathVariable Color eyeColor) {
+
+        log.info("Received reactive request for statistics: {} - {}", nationality, eyeColor);
+
+        return reactiveDemographyService.calculateNationalityEyeColorStats(nationality, eyeColor);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+@Schema(description = "Statistics queries evaluated together against one population version")
+public record BatchStatsRequestDTO(
+        @NotEmpty(message = "At least one query is required")
+        List<@Valid @NotNull(message = "Query cannot be null") StatsQueryDTO> queries
+) {}
@@ -0,0 +1,8 @@
+package ru.itmo.demography_service.dto;
+
+import java.util.List;
+
+public record BatchStatsResponseDTO(
+        long populationVersion,
+        List<StatsResultDTO> results
+) {}
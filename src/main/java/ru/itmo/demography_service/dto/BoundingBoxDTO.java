@@ -0,0 +1,18 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Axis-aligned box over person coordinates, bounds inclusive")
+public record BoundingBoxDTO(
+        @Schema(description = "Smallest x", example = "-200")
+        long minX,
+
+        @Schema(description = "Smallest y", example = "-100")
+        long minY,
+
+        @Schema(description = "Largest x", example = "199")
+        long maxX,
+
+        @Schema(description = "Largest y", example = "99")
+        long maxY
+) {}
@@ -0,0 +1,18 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "How an approximate statistic was estimated from the population sample")
+public record EstimateDTO(
+        @Schema(description = "Persons in the uniform sample the statistic was computed from", example = "40000")
+        long sampleSize,
+
+        @Schema(description = "Confidence level of the interval", example = "0.95")
+        double confidenceLevel,
+
+        @Schema(description = "Lower bound of the confidence interval of the estimated statistic", example = "22.6")
+        double lowerBound,
+
+        @Schema(description = "Upper bound of the confidence interval of the estimated statistic", example = "23.4")
+        double upperBound
+) {}
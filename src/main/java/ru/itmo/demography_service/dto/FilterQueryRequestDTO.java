@@ -0,0 +1,12 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+@Schema(description = "Ad-hoc count query over person attributes")
+public record FilterQueryRequestDTO(
+        @NotNull(message = "Filter is required")
+        @Valid
+        PersonFilterDTO filter
+) {}
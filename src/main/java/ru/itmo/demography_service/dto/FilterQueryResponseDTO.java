@@ -0,0 +1,17 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record FilterQueryResponseDTO(
+        @Schema(description = "Population version the query was evaluated against", example = "42")
+        long populationVersion,
+
+        @Schema(description = "Total number of persons", example = "100")
+        long totalPersons,
+
+        @Schema(description = "Number of persons matching the filter", example = "12")
+        long matchingPersons,
+
+        @Schema(description = "Share of the total population matching the filter, in percent", example = "12.0")
+        double percentage
+) {}
@@ -0,0 +1,23 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.itmo.demography_service.dto.enums.Color;
+
+import java.util.Map;
+
+public record HairColorDistributionDTO(
+        @Schema(description = "Population version the distribution was computed from", example = "42")
+        long populationVersion,
+
+        @Schema(description = "Total number of persons", example = "100")
+        long totalPersons,
+
+        @Schema(description = "Number of persons per hair color; every color is present")
+        Map<Color, Long> counts,
+
+        @Schema(description = "Share of the total population per hair color, in percent")
+        Map<Color, Double> percentages,
+
+        @Schema(description = "Number of persons without a hair color", example = "0")
+        long unknownCount
+) {}
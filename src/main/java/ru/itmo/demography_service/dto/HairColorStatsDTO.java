@@ -1,10 +1,20 @@
 package ru.itmo.demography_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
 import ru.itmo.demography_service.dto.enums.Color;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record HairColorStatsDTO(
         Color hairColor,
         double percentage,
         long totalPersons,
-        long personsWithHairColor
-) {}
\ No newline at end of file
+        long personsWithHairColor,
+
+        @Schema(description = "Present only for approximate results; the interval bounds the percentage")
+        EstimateDTO estimate
+) {
+    public HairColorStatsDTO(Color hairColor, double percentage, long totalPersons, long personsWithHairColor) {
+        this(hairColor, percentage, totalPersons, personsWithHairColor, null);
+    }
+}
@@ -0,0 +1,21 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.TimeBucket;
+
+import java.util.List;
+
+public record HairColorTrendDTO(
+        @Schema(description = "Population version the trend was computed from", example = "42")
+        long populationVersion,
+
+        @Schema(description = "Hair color", example = "BLUE")
+        Color hairColor,
+
+        @Schema(description = "Bucket size", example = "WEEK")
+        TimeBucket bucket,
+
+        @Schema(description = "One point per bucket overlapping the range, in date order; empty buckets included")
+        List<HairColorTrendPointDTO> points
+) {}
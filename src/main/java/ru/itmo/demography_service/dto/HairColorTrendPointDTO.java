@@ -0,0 +1,22 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+public record HairColorTrendPointDTO(
+        @Schema(description = "First day of the bucket within the requested range", example = "2024-01-01")
+        LocalDate from,
+
+        @Schema(description = "Last day of the bucket within the requested range", example = "2024-01-07")
+        LocalDate to,
+
+        @Schema(description = "Persons created in the bucket", example = "100")
+        long totalPersons,
+
+        @Schema(description = "Persons created in the bucket with the hair color", example = "23")
+        long personsWithHairColor,
+
+        @Schema(description = "Share of the bucket's persons with the hair color, in percent", example = "23.0")
+        double percentage
+) {}
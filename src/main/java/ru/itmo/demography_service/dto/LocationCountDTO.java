@@ -0,0 +1,11 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record LocationCountDTO(
+        @Schema(description = "Location name", example = "Madrid")
+        String location,
+
+        @Schema(description = "Persons of the nationality at the location", example = "42")
+        long count
+) {}
@@ -0,0 +1,30 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+
+import java.util.List;
+
+public record NationalityEyeColorMatrixDTO(
+        @Schema(description = "Population version the matrix was computed from", example = "42")
+        long populationVersion,
+
+        @Schema(description = "Row labels, in row order")
+        List<Country> nationalities,
+
+        @Schema(description = "Column labels, in column order")
+        List<Color> eyeColors,
+
+        @Schema(description = "counts[row][column] is the number of persons with that nationality and eye color")
+        long[][] counts,
+
+        @Schema(description = "Persons per nationality, including those without an eye color")
+        long[] nationalityTotals,
+
+        @Schema(description = "Persons per eye color, including those without a nationality")
+        long[] eyeColorTotals,
+
+        @Schema(description = "Total number of persons", example = "100")
+        long totalPersons
+) {}
@@ -1,11 +1,22 @@
 package ru.itmo.demography_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
 import ru.itmo.demography_service.dto.enums.Color;
 import ru.itmo.demography_service.dto.enums.Country;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record NationalityEyeColorStatsDTO(
         Country nationality,
         Color eyeColor,
         long count,
-        long totalPersonsInNationality
-) {}
+        long totalPersonsInNationality,
+
+        @Schema(description = "Present only for approximate results; the interval bounds the count")
+        EstimateDTO estimate
+) {
+    public NationalityEyeColorStatsDTO(Country nationality, Color eyeColor, long count,
+                                       long totalPersonsInNationality) {
+        this(nationality, eyeColor, count, totalPersonsInNationality, null);
+    }
+}
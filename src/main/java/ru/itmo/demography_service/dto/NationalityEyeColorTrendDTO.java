@@ -0,0 +1,25 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.TimeBucket;
+
+import java.util.List;
+
+public record NationalityEyeColorTrendDTO(
+        @Schema(description = "Population version the trend was computed from", example = "42")
+        long populationVersion,
+
+        @Schema(description = "Nationality", example = "SPAIN")
+        Country nationality,
+
+        @Schema(description = "Eye color", example = "GREEN")
+        Color eyeColor,
+
+        @Schema(description = "Bucket size", example = "MONTH")
+        TimeBucket bucket,
+
+        @Schema(description = "One point per bucket overlapping the range, in date order; empty buckets included")
+        List<NationalityEyeColorTrendPointDTO> points
+) {}
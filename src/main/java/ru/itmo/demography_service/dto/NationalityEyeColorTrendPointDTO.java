@@ -0,0 +1,19 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+public record NationalityEyeColorTrendPointDTO(
+        @Schema(description = "First day of the bucket within the requested range", example = "2024-01-01")
+        LocalDate from,
+
+        @Schema(description = "Last day of the bucket within the requested range", example = "2024-01-31")
+        LocalDate to,
+
+        @Schema(description = "Persons created in the bucket with the nationality and eye color", example = "15")
+        long count,
+
+        @Schema(description = "Persons created in the bucket with the nationality", example = "45")
+        long totalPersonsInNationality
+) {}
@@ -0,0 +1,31 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import ru.itmo.demography_service.dto.enums.PersonAttribute;
+
+import java.util.List;
+
+@Schema(description = "Filter node; exactly one of allOf, anyOf, not, or attribute with in / notIn must be set. "
+        + "A null value in in / notIn matches persons without the attribute")
+public record PersonFilterDTO(
+        @Schema(description = "Persons matching every nested filter")
+        List<@Valid @NotNull(message = "Filter cannot be null") PersonFilterDTO> allOf,
+
+        @Schema(description = "Persons matching at least one nested filter")
+        List<@Valid @NotNull(message = "Filter cannot be null") PersonFilterDTO> anyOf,
+
+        @Schema(description = "Persons not matching the nested filter")
+        @Valid
+        PersonFilterDTO not,
+
+        @Schema(description = "Attribute compared by in / notIn", example = "NATIONALITY")
+        PersonAttribute attribute,
+
+        @Schema(description = "Attribute values to match", example = "[\"SPAIN\", \"INDIA\"]")
+        List<String> in,
+
+        @Schema(description = "Attribute values to exclude", example = "[\"BROWN\"]")
+        List<String> notIn
+) {}
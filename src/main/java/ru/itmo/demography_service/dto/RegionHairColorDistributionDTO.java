@@ -0,0 +1,14 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record RegionHairColorDistributionDTO(
+        @Schema(description = "Box the distribution covers: the requested box widened to whole grid cells")
+        BoundingBoxDTO region,
+
+        @Schema(description = "Non-empty grid cells merged to answer the query", example = "8")
+        int cellsTouched,
+
+        @Schema(description = "Hair color distribution of the persons with coordinates inside the region")
+        HairColorDistributionDTO distribution
+) {}
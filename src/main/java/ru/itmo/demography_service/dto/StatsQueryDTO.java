@@ -0,0 +1,23 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.StatsQueryType;
+
+@Schema(description = "Single statistics query; which fields are required depends on the type")
+public record StatsQueryDTO(
+        @Schema(description = "Query type", example = "HAIR_COLOR_PERCENTAGE")
+        @NotNull(message = "Query type is required")
+        StatsQueryType type,
+
+        @Schema(description = "Hair color, required for HAIR_COLOR_PERCENTAGE", example = "BLUE")
+        Color hairColor,
+
+        @Schema(description = "Nationality, required for NATIONALITY_EYE_COLOR", example = "SPAIN")
+        Country nationality,
+
+        @Schema(description = "Eye color, required for NATIONALITY_EYE_COLOR", example = "GREEN")
+        Color eyeColor
+) {}
@@ -0,0 +1,11 @@
+package ru.itmo.demography_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.itmo.demography_service.dto.enums.StatsQueryType;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StatsResultDTO(
+        StatsQueryType type,
+        HairColorStatsDTO hairColorStats,
+        NationalityEyeColorStatsDTO nationalityEyeColorStats
+) {}
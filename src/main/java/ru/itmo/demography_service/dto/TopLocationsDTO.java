@@ -0,0 +1,17 @@
+package ru.itmo.demography_service.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.itmo.demography_service.dto.enums.Country;
+
+import java.util.List;
+
+public record TopLocationsDTO(
+        @Schema(description = "Population version the ranking was computed from", example = "42")
+        long populationVersion,
+
+        @Schema(description = "Nationality", example = "SPAIN")
+        Country nationality,
+
+        @Schema(description = "Locations with the most persons of the nationality, most first; ties by name")
+        List<LocationCountDTO> locations
+) {}
@@ -0,0 +1,7 @@
+package ru.itmo.demography_service.dto.enums;
+
+public enum PersonAttribute {
+    NATIONALITY,
+    HAIR_COLOR,
+    EYE_COLOR;
+}
@@ -0,0 +1,6 @@
+package ru.itmo.demography_service.dto.enums;
+
+public enum StatsQueryType {
+    HAIR_COLOR_PERCENTAGE,
+    NATIONALITY_EYE_COLOR;
+}
@@ -0,0 +1,39 @@
+package ru.itmo.demography_service.dto.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+public enum TimeBucket {
+    DAY(ChronoUnit.DAYS),
+    WEEK(ChronoUnit.WEEKS),
+    MONTH(ChronoUnit.MONTHS);
+
+    private final ChronoUnit unit;
+
+    TimeBucket(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * First day of the bucket containing {@code date}; weeks start on Monday (ISO-8601).
+     */
+    public LocalDate start(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate start) {
+        return start.plus(1, unit);
+    }
+
+    /**
+     * Number of buckets overlapping {@code from} to {@code to} inclusive.
+     */
+    public long count(LocalDate from, LocalDate to) {
+        return unit.between(start(from), start(to)) + 1;
+    }
+}
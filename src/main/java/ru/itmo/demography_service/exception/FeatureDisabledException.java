@@ -0,0 +1,14 @@
+package ru.itmo.demography_service.exception;
+
+public class FeatureDisabledException extends RuntimeException {
+    private final String property;
+
+    public FeatureDisabledException(String property, String message) {
+        super(message);
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+}
@@ -2,20 +2,24 @@ package ru.itmo.demography_service.exception.handler;
 
 import feign.FeignException;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import ru.itmo.demography_service.dto.ErrorDTO;
 import ru.itmo.demography_service.dto.ErrorsDto;
+import ru.itmo.demography_service.exception.FeatureDisabledException;
 import ru.itmo.demography_service.exception.InvalidParameterException;
 import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
 
 import java.net.SocketTimeoutException;
 import java.time.LocalDateTime;
@@ -26,22 +30,33 @@ import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 @Slf4j
 public class GlobalExceptionHandler {
 
+    private final DemographyMetrics demographyMetrics;
+
     @ExceptionHandler(PersonServiceException.class)
     public ResponseEntity<ErrorDTO> handlePersonServiceException(
             PersonServiceException e, HttpServletRequest request) {
 
-        log.error("Person service exception: {}", e.getMessage(), e);
+        boolean circuitOpen = "CIRCUIT_OPEN".equals(e.getErrorCode());
+        if (circuitOpen) {
+            log.warn("Person service exception: {}", e.getMessage());
+        } else {
+            log.error("Person service exception: {}", e.getMessage(), e);
+        }
 
+        String code = circuitOpen ? "CIRCUIT_OPEN" : "EXTERNAL_SERVICE_ERROR";
         ErrorDTO error = new ErrorDTO(
-                "EXTERNAL_SERVICE_ERROR",
+                code,
                 e.getMessage(),
                 LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant(),
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled(code, e);
+
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
     }
 
@@ -65,6 +80,8 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("EXTERNAL_SERVICE_ERROR", e);
+
         return ResponseEntity.status(correctStatus).body(error);
     }
 
@@ -82,9 +99,29 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("INVALID_REQUEST_PARAMETER", e);
+
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(FeatureDisabledException.class)
+    public ResponseEntity<ErrorDTO> handleFeatureDisabledException(
+            FeatureDisabledException e, HttpServletRequest request) {
+
+        log.warn("Request needs a disabled feature ({}): {}", e.getProperty(), e.getMessage());
+
+        ErrorDTO error = new ErrorDTO(
+                "FEATURE_DISABLED",
+                e.getMessage(),
+                LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant(),
+                request.getRequestURI()
+        );
+
+        demographyMetrics.errorHandled("FEATURE_DISABLED", e);
+
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorDTO> handleMethodArgumentTypeMismatch(
             MethodArgumentTypeMismatchException e, HttpServletRequest request) {
@@ -113,6 +150,27 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("INVALID_PARAMETER_TYPE", e);
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<ErrorDTO> handleMissingServletRequestParameter(
+            MissingServletRequestParameterException e, HttpServletRequest request) {
+
+        log.warn("Missing request parameter: {}", e.getParameterName());
+
+        ErrorDTO error = new ErrorDTO(
+                "MISSING_REQUEST_PARAMETER",
+                String.format("Required parameter '%s' of type %s is missing",
+                        e.getParameterName(), e.getParameterType()),
+                LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant(),
+                request.getRequestURI()
+        );
+
+        demographyMetrics.errorHandled("MISSING_REQUEST_PARAMETER", e);
+
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
@@ -135,6 +193,8 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("VALIDATION_FAILED", e);
+
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorsDto);
     }
 
@@ -169,6 +229,8 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled(errorCode, e);
+
         return ResponseEntity.status(status).body(error);
     }
 
@@ -185,6 +247,8 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("ENDPOINT_NOT_FOUND", e);
+
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
@@ -201,6 +265,8 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("TIMEOUT_ERROR", e);
+
         return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
     }
 
@@ -217,6 +283,8 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("INVALID_ARGUMENT", e);
+
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
@@ -235,6 +303,8 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("METHOD_NOT_ALLOWED", e);
+
         return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED).body(error);
     }
 
@@ -251,6 +321,8 @@ public class GlobalExceptionHandler {
                 request.getRequestURI()
         );
 
+        demographyMetrics.errorHandled("INTERNAL_SERVER_ERROR", e);
+
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
 
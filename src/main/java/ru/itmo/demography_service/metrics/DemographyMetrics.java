@@ -0,0 +1,197 @@
+package ru.itmo.demography_service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.Population;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class DemographyMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Counter snapshotRefreshes;
+    private final Counter coalescedRefreshCallers;
+    private final Counter coalescedReactiveStreamCallers;
+
+    private final AtomicLong nullNationalityPersons = new AtomicLong();
+    private final AtomicLong nullHairColorPersons = new AtomicLong();
+    private final AtomicLong nullEyeColorPersons = new AtomicLong();
+    private final AtomicLong columnStoreBytes = new AtomicLong();
+    private final AtomicLong distinctLocations = new AtomicLong();
+
+    public DemographyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.snapshotRefreshes = Counter.builder("demography.snapshot.refreshes")
+                .description("Population fetches actually sent to Person Service")
+                .register(registry);
+        this.coalescedRefreshCallers = Counter.builder("demography.snapshot.refresh.coalesced")
+                .description("Callers that joined an in-flight population fetch instead of starting one")
+                .register(registry);
+        this.coalescedReactiveStreamCallers = Counter.builder("demography.reactive.stream.coalesced")
+                .description("Reactive requests that joined an in-flight upstream stream instead of starting one")
+                .register(registry);
+
+        registerNullAttributeGauge("nationality", nullNationalityPersons);
+        registerNullAttributeGauge("hairColor", nullHairColorPersons);
+        registerNullAttributeGauge("eyeColor", nullEyeColorPersons);
+
+        Gauge.builder("demography.population.store.size", columnStoreBytes, AtomicLong::get)
+                .description("Heap retained by the columnar store of the current population")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("demography.population.locations", distinctLocations, AtomicLong::get)
+                .description("Distinct location names of the current population, each scanned by every "
+                        + "top-locations request")
+                .baseUnit("locations")
+                .register(registry);
+    }
+
+    public void snapshotRefreshStarted() {
+        snapshotRefreshes.increment();
+    }
+
+    public void refreshCallerCoalesced() {
+        coalescedRefreshCallers.increment();
+    }
+
+    public void reactiveStreamCallerCoalesced() {
+        coalescedReactiveStreamCallers.increment();
+    }
+
+    public Timer.Sample startUpstreamCall() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Records the time from sending a Person Service request until its response headers
+     * arrived, or until the call failed with {@code status} {@code IO_ERROR}.
+     */
+    public void upstreamCallCompleted(Timer.Sample sample, String method, String status) {
+        sample.stop(Timer.builder("demography.person-service.requests")
+                .description("Person Service calls per client method, up to the response headers")
+                .tag("method", method)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    /**
+     * Records a fully consumed Person Service response body: how many bytes were read and
+     * how long transfer plus decoding took after the headers arrived.
+     */
+    public void upstreamBodyRead(String method, long bytes, long nanos) {
+        DistributionSummary.builder("demography.person-service.response.bytes")
+                .description("Decoded Person Service response body size per client method")
+                .baseUnit("bytes")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(bytes);
+        Timer.builder("demography.person-service.response.read")
+                .description("Time spent reading and decoding Person Service response bodies")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * Records a compressed Person Service response body once it has been inflated: the bytes
+     * received on the wire and how many times larger the decoded body was.
+     */
+    public void upstreamBodyDecompressed(String method, String encoding, long wireBytes, long decodedBytes) {
+        DistributionSummary.builder("demography.person-service.response.wire.bytes")
+                .description("Compressed Person Service response body size as received")
+                .baseUnit("bytes")
+                .tag("method", method)
+                .tag("encoding", encoding)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(wireBytes);
+        if (wireBytes > 0) {
+            DistributionSummary.builder("demography.person-service.response.compression.ratio")
+                    .description("Decoded to wire size ratio of compressed Person Service responses")
+                    .tag("method", method)
+                    .tag("encoding", encoding)
+                    .register(registry)
+                    .record((double) decodedBytes / wireBytes);
+        }
+    }
+
+    public void upstreamPersonsRead(String method, long persons) {
+        DistributionSummary.builder("demography.person-service.response.persons")
+                .description("Persons decoded from one Person Service response")
+                .baseUnit("persons")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(persons);
+    }
+
+    /**
+     * Times an aggregation pass whose cost grows with the data it touches: sample scans, trend
+     * ranges, grid regions, location rankings and filter evaluation. Lookups in the count cube
+     * are constant-time and are deliberately not timed, they would only add timer noise.
+     */
+    public <T> T timeAggregation(String endpoint, Supplier<T> pass) {
+        return Timer.builder("demography.aggregation")
+                .description("Time spent on population scans per endpoint")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(pass);
+    }
+
+    /**
+     * Times one population sync, from the first upstream request until the new population
+     * is built.
+     */
+    public <T> T timeSync(String mode, Supplier<T> sync) {
+        return Timer.builder("demography.population.sync")
+                .description("Time spent fetching and aggregating the population per sync mode")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(sync);
+    }
+
+    public void populationLoaded(Population population) {
+        PersonCountCube cube = population.cube();
+        nullNationalityPersons.set(cube.countByNationality(null));
+        nullHairColorPersons.set(cube.countByHairColor(null));
+        nullEyeColorPersons.set(cube.countByEyeColor(null));
+        columnStoreBytes.set(population.columns() == null ? 0 : population.columns().retainedBytes());
+        distinctLocations.set(population.locations().size());
+    }
+
+    public void errorHandled(String error, Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+
+        Counter.builder("demography.errors")
+                .description("Errors answered by the API, by error code and root cause")
+                .tag("error", error)
+                .tag("cause", cause.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    private void registerNullAttributeGauge(String attribute, AtomicLong value) {
+        Gauge.builder("demography.population.null.attributes", value, AtomicLong::get)
+                .description("Persons in the current population without the given attribute")
+                .baseUnit("persons")
+                .tag("attribute", attribute)
+                .register(registry);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.itmo.demography_service.metrics;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Times every {@code PersonServiceClient} call and counts the bytes of its response body
+ * as they are consumed, so streamed bodies are measured without being buffered.
+ */
+public class PersonServiceClientMetrics implements Capability {
+
+    private final DemographyMetrics demographyMetrics;
+
+    public PersonServiceClientMetrics(DemographyMetrics demographyMetrics) {
+        this.demographyMetrics = demographyMetrics;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        String method = methodName(request);
+        Timer.Sample sample = demographyMetrics.startUpstreamCall();
+
+        Response response;
+        try {
+            response = client.execute(request, options);
+        } catch (IOException | RuntimeException e) {
+            demographyMetrics.upstreamCallCompleted(sample, method, "IO_ERROR");
+            throw e;
+        }
+        demographyMetrics.upstreamCallCompleted(sample, method, String.valueOf(response.status()));
+
+        if (response.body() == null) {
+            return response;
+        }
+        return response.toBuilder()
+                .body(new CountingInputStream(response.body().asInputStream(), method), response.body().length())
+                .build();
+    }
+
+    public static String methodName(Request request) {
+        RequestTemplate template = request.requestTemplate();
+        if (template == null || template.methodMetadata() == null) {
+            return "unknown";
+        }
+        return template.methodMetadata().method().getName();
+    }
+
+    private final class CountingInputStream extends FilterInputStream {
+
+        private final String method;
+        private final long startedAt = System.nanoTime();
+
+        private long bytes;
+        private boolean closed;
+
+        CountingInputStream(InputStream in, String method) {
+            super(in);
+            this.method = method;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                demographyMetrics.upstreamBodyRead(method, bytes, System.nanoTime() - startedAt);
+            }
+            super.close();
+        }
+    }
+}
@@ -1,52 +1,122 @@
 package ru.itmo.demography_service.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.stereotype.Service;
-import ru.itmo.demography_service.client.PersonServiceClient;
-import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.aggregation.PersonBitmapIndex;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.PersonReservoir;
+import ru.itmo.demography_service.dto.BatchStatsResponseDTO;
+import ru.itmo.demography_service.dto.BoundingBoxDTO;
+import ru.itmo.demography_service.dto.FilterQueryResponseDTO;
+import ru.itmo.demography_service.dto.HairColorDistributionDTO;
 import ru.itmo.demography_service.dto.HairColorStatsDTO;
+import ru.itmo.demography_service.dto.HairColorTrendDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorMatrixDTO;
 import ru.itmo.demography_service.dto.NationalityEyeColorStatsDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorTrendDTO;
+import ru.itmo.demography_service.dto.PersonFilterDTO;
+import ru.itmo.demography_service.dto.RegionHairColorDistributionDTO;
+import ru.itmo.demography_service.dto.StatsQueryDTO;
+import ru.itmo.demography_service.dto.StatsResultDTO;
+import ru.itmo.demography_service.dto.TopLocationsDTO;
 import ru.itmo.demography_service.dto.enums.Color;
 import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.TimeBucket;
+import ru.itmo.demography_service.exception.FeatureDisabledException;
 import ru.itmo.demography_service.exception.InvalidParameterException;
 import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
 
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Objects;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DemographyService {
 
-    private final PersonServiceClient personServiceClient;
+    private final PopulationSnapshotService populationSnapshotService;
+    private final DemographyMetrics demographyMetrics;
+
+    @Value("${demography.batch.max-queries:100}")
+    private int maxBatchQueries;
+
+    @Value("${demography.sample.confidence:0.95}")
+    private double sampleConfidence;
+
+    @Value("${demography.trends.max-buckets:1000}")
+    private int maxTrendBuckets;
+
+    @Value("${demography.regions.max-top-locations:100}")
+    private int maxTopLocations;
+
+    /**
+     * Fails startup on a confidence level no interval can be built for, instead of on the
+     * first approximate request.
+     */
+    @PostConstruct
+    void checkSampleConfidence() {
+        if (!(sampleConfidence > 0 && sampleConfidence < 1)) {
+            throw new IllegalArgumentException(
+                    "demography.sample.confidence must lie strictly between 0 and 1: " + sampleConfidence);
+        }
+    }
+
+    public PopulationSnapshot currentSnapshot() {
+        return populationSnapshotService.getSnapshot();
+    }
+
+    public String entityTag(PopulationSnapshot snapshot, String representation) {
+        return populationSnapshotService.entityTag(snapshot, representation);
+    }
+
+    public boolean isStale(PopulationSnapshot snapshot) {
+        return populationSnapshotService.isStale(snapshot);
+    }
 
     public HairColorStatsDTO calculateHairColorPercentage(Color hairColor) {
         validateHairColor(hairColor);
+        return calculateHairColorPercentage(currentSnapshot(), hairColor);
+    }
+
+    public HairColorStatsDTO calculateHairColorPercentage(PopulationSnapshot snapshot, Color hairColor) {
+        return calculateHairColorPercentage(snapshot, hairColor, false);
+    }
+
+    /**
+     * @param approximate estimate from the population sample instead of counting exactly; falls
+     *                    back to the exact count when the population carries no sample
+     */
+    public HairColorStatsDTO calculateHairColorPercentage(
+            PopulationSnapshot snapshot, Color hairColor, boolean approximate) {
+
+        validateHairColor(hairColor);
 
         try {
-            log.info("Calculating hair color percentage for: {}", hairColor);
+            log.info("Calculating {} hair color percentage for: {}",
+                    approximate ? "approximate" : "exact", hairColor);
 
-            List<PersonDTO> allPersons = fetchAllPersons();
+            PersonCountCube cube = snapshot.cube();
+            PersonReservoir sample = approximate ? sample(snapshot) : null;
 
-            if (allPersons.isEmpty()) {
+            if (cube.total() == 0) {
                 log.info("No persons found in the system");
-                return new HairColorStatsDTO(hairColor, 0.0, 0L, 0L);
             }
 
-            long totalCount = allPersons.size();
-
-            long colorCount = allPersons.stream()
-                    .filter(person -> Objects.equals(hairColor, person.hairColor()))
-                    .count();
-
-            double percentage = (colorCount * 100.0) / totalCount;
+            HairColorStatsDTO stats = sample != null
+                    ? demographyMetrics.timeAggregation("hair-color-percentage-approximate",
+                            () -> StatsCalculator.approximateHairColorStats(sample, hairColor, sampleConfidence))
+                    : StatsCalculator.hairColorStats(cube, hairColor);
 
             log.info("Hair color stats: total={}, with_color={}, percentage={}",
-                    totalCount, colorCount, percentage);
+                    stats.totalPersons(), stats.personsWithHairColor(), stats.percentage());
 
-            return new HairColorStatsDTO(hairColor, percentage, totalCount, colorCount);
+            return stats;
 
         } catch (PersonServiceException e) {
             throw e;
@@ -62,36 +132,45 @@ public class DemographyService {
 
         validateNationality(nationality);
         validateEyeColor(eyeColor);
+        return calculateNationalityEyeColorStats(currentSnapshot(), nationality, eyeColor);
+    }
 
-        try {
-            log.info("Calculating nationality eye color stats for: {} - {}", nationality, eyeColor);
+    public NationalityEyeColorStatsDTO calculateNationalityEyeColorStats(
+            PopulationSnapshot snapshot, Country nationality, Color eyeColor) {
+        return calculateNationalityEyeColorStats(snapshot, nationality, eyeColor, false);
+    }
 
-            List<PersonDTO> allPersons = fetchAllPersons();
+    /**
+     * @param approximate estimate from the population sample instead of counting exactly; falls
+     *                    back to the exact count when the population carries no sample
+     */
+    public NationalityEyeColorStatsDTO calculateNationalityEyeColorStats(
+            PopulationSnapshot snapshot, Country nationality, Color eyeColor, boolean approximate) {
 
-            List<PersonDTO> nationalityPersons = allPersons.stream()
-                    .filter(person -> Objects.equals(nationality, person.nationality()))
-                    .toList();
+        validateNationality(nationality);
+        validateEyeColor(eyeColor);
 
-            if (nationalityPersons.isEmpty()) {
-                log.info("No persons found with nationality: {}", nationality);
-                return new NationalityEyeColorStatsDTO(nationality, eyeColor, 0L, 0L);
-            }
+        try {
+            log.info("Calculating {} nationality eye color stats for: {} - {}",
+                    approximate ? "approximate" : "exact", nationality, eyeColor);
 
-            long eyeColorCount = nationalityPersons.stream()
-                    .filter(person -> Objects.equals(eyeColor, person.eyeColor()))
-                    .count();
+            PersonCountCube cube = snapshot.cube();
+            PersonReservoir sample = approximate ? sample(snapshot) : null;
 
-            long totalNationalityCount = nationalityPersons.size();
+            NationalityEyeColorStatsDTO stats = sample != null
+                    ? demographyMetrics.timeAggregation("nationality-eye-color-approximate",
+                            () -> StatsCalculator.approximateNationalityEyeColorStats(
+                                    sample, nationality, eyeColor, sampleConfidence))
+                    : StatsCalculator.nationalityEyeColorStats(cube, nationality, eyeColor);
 
-            log.info("Nationality eye color stats: nationality={}, total={}, with_eye_color={}",
-                    nationality, totalNationalityCount, eyeColorCount);
+            if (stats.totalPersonsInNationality() == 0) {
+                log.info("No persons found with nationality: {}", nationality);
+            } else {
+                log.info("Nationality eye color stats: nationality={}, total={}, with_eye_color={}",
+                        nationality, stats.totalPersonsInNationality(), stats.count());
+            }
 
-            return new NationalityEyeColorStatsDTO(
-                    nationality,
-                    eyeColor,
-                    eyeColorCount,
-                    totalNationalityCount
-            );
+            return stats;
 
         } catch (PersonServiceException e) {
             throw e;
@@ -107,30 +186,14 @@ public class DemographyService {
         validateHairColor(hairColor);
 
         try {
-            List<PersonDTO> allPersons = fetchAllPersons();
+            PersonCountCube cube = currentCube();
 
-            if (allPersons.isEmpty()) {
-                return new HairColorStatsDTO(hairColor, 0.0, 0L, 0L);
+            long nullHairColorCount = cube.countByHairColor(null);
+            if (nullHairColorCount > 0) {
+                log.warn("Found {} persons with null hair color", nullHairColorCount);
             }
 
-            long colorCount = allPersons.stream()
-                    .filter(person -> person.hairColor() != null &&
-                            person.hairColor().equals(hairColor))
-                    .count();
-
-            long colorCountDetailed = allPersons.stream()
-                    .mapToLong(person -> {
-                        if (person.hairColor() == null) {
-                            log.warn("Found person with null hair color: id={}", person.id());
-                            return 0L;
-                        }
-                        return person.hairColor().equals(hairColor) ? 1L : 0L;
-                    })
-                    .sum();
-
-            double percentage = (colorCount * 100.0) / allPersons.size();
-
-            return new HairColorStatsDTO(hairColor, percentage, allPersons.size(), colorCount);
+            return StatsCalculator.hairColorStats(cube, hairColor);
 
         } catch (Exception e) {
             log.error("Error in detailed hair color calculation for {}", hairColor, e);
@@ -138,56 +201,340 @@ public class DemographyService {
         }
     }
 
-    private void validateHairColor(Color hairColor) {
-        if (hairColor == null) {
-            throw new InvalidParameterException("hairColor", null, "Hair color cannot be null");
+    public HairColorDistributionDTO calculateHairColorDistribution() {
+        return calculateHairColorDistribution(currentSnapshot());
+    }
+
+    public HairColorDistributionDTO calculateHairColorDistribution(PopulationSnapshot snapshot) {
+        try {
+            log.info("Calculating hair color distribution");
+
+            return StatsCalculator.hairColorDistribution(snapshot.cube(), snapshot.version());
+
+        } catch (PersonServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error calculating hair color distribution", e);
+            throw new PersonServiceException(
+                    "Failed to calculate hair color distribution: " + e.getMessage(), e);
         }
     }
 
-    private void validateNationality(Country nationality) {
-        if (nationality == null) {
-            throw new InvalidParameterException("nationality", null, "Nationality cannot be null");
+    public NationalityEyeColorMatrixDTO calculateNationalityEyeColorMatrix() {
+        return calculateNationalityEyeColorMatrix(currentSnapshot());
+    }
+
+    public NationalityEyeColorMatrixDTO calculateNationalityEyeColorMatrix(PopulationSnapshot snapshot) {
+        try {
+            log.info("Calculating nationality eye color matrix");
+
+            return StatsCalculator.nationalityEyeColorMatrix(snapshot.cube(), snapshot.version());
+
+        } catch (PersonServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error calculating nationality eye color matrix", e);
+            throw new PersonServiceException(
+                    "Failed to calculate nationality eye color matrix: " + e.getMessage(), e);
         }
     }
 
-    private void validateEyeColor(Color eyeColor) {
-        if (eyeColor == null) {
-            throw new InvalidParameterException("eyeColor", null, "Eye color cannot be null");
+    public HairColorTrendDTO calculateHairColorTrend(
+            PopulationSnapshot snapshot, Color hairColor, LocalDate from, LocalDate to, TimeBucket bucket) {
+
+        validateHairColor(hairColor);
+        validateTrendRange(from, to, bucket);
+
+        try {
+            log.info("Calculating hair color trend for: {} from {} to {} by {}", hairColor, from, to, bucket);
+
+            return demographyMetrics.timeAggregation("hair-color-trend",
+                    () -> StatsCalculator.hairColorTrend(snapshot.population().timeline(), hairColor,
+                            from, to, bucket, snapshot.version()));
+
+        } catch (PersonServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error calculating hair color trend for {}", hairColor, e);
+            throw new PersonServiceException(
+                    "Failed to calculate hair color trend: " + e.getMessage(), e);
         }
     }
 
-    private List<PersonDTO> fetchAllPersons() {
+    public NationalityEyeColorTrendDTO calculateNationalityEyeColorTrend(
+            PopulationSnapshot snapshot, Country nationality, Color eyeColor,
+            LocalDate from, LocalDate to, TimeBucket bucket) {
+
+        validateNationality(nationality);
+        validateEyeColor(eyeColor);
+        validateTrendRange(from, to, bucket);
+
         try {
-            List<PersonDTO> persons = personServiceClient.getAllPersons();
+            log.info("Calculating nationality eye color trend for: {} - {} from {} to {} by {}",
+                    nationality, eyeColor, from, to, bucket);
 
-            if (persons == null) {
-                log.warn("Person service returned null instead of empty list");
-                throw new PersonServiceException("Person service returned invalid data");
-            }
+            return demographyMetrics.timeAggregation("nationality-eye-color-trend",
+                    () -> StatsCalculator.nationalityEyeColorTrend(snapshot.population().timeline(),
+                            nationality, eyeColor, from, to, bucket, snapshot.version()));
 
-            long nullNationalityCount = persons.stream()
-                    .filter(person -> person.nationality() == null)
-                    .count();
+        } catch (PersonServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error calculating nationality eye color trend for {} - {}",
+                    nationality, eyeColor, e);
+            throw new PersonServiceException(
+                    "Failed to calculate nationality eye color trend: " + e.getMessage(), e);
+        }
+    }
 
-            long nullHairColorCount = persons.stream()
-                    .filter(person -> person.hairColor() == null)
-                    .count();
+    public RegionHairColorDistributionDTO calculateRegionHairColorDistribution(
+            PopulationSnapshot snapshot, Long minX, Long minY, Long maxX, Long maxY) {
 
-            long nullEyeColorCount = persons.stream()
-                    .filter(person -> person.eyeColor() == null)
-                    .count();
+        BoundingBoxDTO box = validateBoundingBox(minX, minY, maxX, maxY);
 
-            if (nullNationalityCount > 0 || nullHairColorCount > 0 || nullEyeColorCount > 0) {
-                log.warn("Found {} persons with null nationality, {} with null hair color, and {} with null eye color",
-                        nullNationalityCount, nullHairColorCount, nullEyeColorCount);
-            }
+        try {
+            log.info("Calculating hair color distribution in region {}", box);
+
+            RegionHairColorDistributionDTO distribution = demographyMetrics.timeAggregation(
+                    "region-hair-color-distribution",
+                    () -> StatsCalculator.regionHairColorDistribution(
+                            snapshot.population().grid(), box, snapshot.version()));
+
+            log.info("Region {} merged {} grid cells holding {} persons", distribution.region(),
+                    distribution.cellsTouched(), distribution.distribution().totalPersons());
 
-            return persons;
+            return distribution;
 
+        } catch (PersonServiceException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Failed to fetch persons from Person Service", e);
+            log.error("Unexpected error calculating hair color distribution in region {}", box, e);
             throw new PersonServiceException(
-                    "Unable to retrieve person data from external service", e);
+                    "Failed to calculate region hair color distribution: " + e.getMessage(), e);
         }
     }
+
+    public TopLocationsDTO calculateTopLocations(PopulationSnapshot snapshot, Country nationality, int limit) {
+        validateNationality(nationality);
+        validateTopLocationsLimit(limit);
+
+        try {
+            log.info("Calculating top {} locations for nationality: {}", limit, nationality);
+
+            return demographyMetrics.timeAggregation("top-locations",
+                    () -> StatsCalculator.topLocations(
+                            snapshot.population().locations(), nationality, limit, snapshot.version()));
+
+        } catch (PersonServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error calculating top locations for {}", nationality, e);
+            throw new PersonServiceException(
+                    "Failed to calculate top locations: " + e.getMessage(), e);
+        }
+    }
+
+    public BatchStatsResponseDTO calculateBatch(List<StatsQueryDTO> queries) {
+        validateBatch(queries);
+        return calculateBatch(currentSnapshot(), queries);
+    }
+
+    /**
+     * Answers a batch already checked by {@link #validateBatch}, which callers run before
+     * taking {@code snapshot}; the queries are not validated again.
+     */
+    public BatchStatsResponseDTO calculateBatch(PopulationSnapshot snapshot, List<StatsQueryDTO> queries) {
+        try {
+            log.info("Calculating batch of {} statistics queries", queries.size());
+
+            PersonCountCube cube = snapshot.cube();
+
+            List<StatsResultDTO> results = queries.stream()
+                    .map(query -> switch (query.type()) {
+                        case HAIR_COLOR_PERCENTAGE -> new StatsResultDTO(query.type(),
+                                StatsCalculator.hairColorStats(cube, query.hairColor()), null);
+                        case NATIONALITY_EYE_COLOR -> new StatsResultDTO(query.type(), null,
+                                StatsCalculator.nationalityEyeColorStats(cube, query.nationality(), query.eyeColor()));
+                    })
+                    .toList();
+
+            return new BatchStatsResponseDTO(snapshot.version(), results);
+
+        } catch (PersonServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error calculating batch statistics", e);
+            throw new PersonServiceException(
+                    "Failed to calculate batch statistics: " + e.getMessage(), e);
+        }
+    }
+
+    public FilterQueryResponseDTO calculateFilterQuery(PersonFilterDTO filter) {
+        validateFilter(filter);
+        return calculateFilterQuery(currentSnapshot(), filter);
+    }
+
+    public FilterQueryResponseDTO calculateFilterQuery(PopulationSnapshot snapshot, PersonFilterDTO filter) {
+        Function<PersonBitmapIndex, RoaringBitmap> query = PersonFilterCompiler.compile(filter, "filter");
+
+        PersonBitmapIndex index = snapshot.population().index();
+        if (index == null) {
+            throw new FeatureDisabledException("demography.store.columnar",
+                    "Filter queries require the columnar store (demography.store.columnar=true)");
+        }
+
+        try {
+            log.info("Evaluating filter query");
+
+            long matching = demographyMetrics.timeAggregation("filter-query",
+                    () -> query.apply(index).getLongCardinality());
+            long total = index.size();
+            double percentage = total == 0 ? 0.0 : (matching * 100.0) / total;
+
+            log.info("Filter query matched {} of {} persons", matching, total);
+
+            return new FilterQueryResponseDTO(snapshot.version(), total, matching, percentage);
+
+        } catch (PersonServiceException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error evaluating filter query", e);
+            throw new PersonServiceException(
+                    "Failed to evaluate filter query: " + e.getMessage(), e);
+        }
+    }
+
+    private static PersonReservoir sample(PopulationSnapshot snapshot) {
+        PersonReservoir sample = snapshot.population().sample();
+        if (sample == null) {
+            log.debug("Population version {} carries no sample, answering exactly", snapshot.version());
+        }
+        return sample;
+    }
+
+    /**
+     * Rejects a batch the service would not answer. Callers check the request before taking
+     * a snapshot, so a bad request gets a 400 even while Person Service is unavailable.
+     */
+    public void validateBatch(List<StatsQueryDTO> queries) {
+        if (queries.size() > maxBatchQueries) {
+            throw new InvalidParameterException("queries", queries.size(),
+                    "Batch cannot contain more than " + maxBatchQueries + " queries");
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            validateQuery(i, queries.get(i));
+        }
+    }
+
+    /**
+     * Rejects a malformed filter before a snapshot is taken, like {@link #validateBatch}.
+     */
+    public void validateFilter(PersonFilterDTO filter) {
+        PersonFilterCompiler.compile(filter, "filter");
+    }
+
+    private void validateQuery(int index, StatsQueryDTO query) {
+        String prefix = "queries[" + index + "].";
+        switch (query.type()) {
+            case HAIR_COLOR_PERCENTAGE -> {
+                if (query.hairColor() == null) {
+                    throw new InvalidParameterException(prefix + "hairColor", null,
+                            "Hair color is required for " + query.type() + " query #" + index);
+                }
+            }
+            case NATIONALITY_EYE_COLOR -> {
+                if (query.nationality() == null) {
+                    throw new InvalidParameterException(prefix + "nationality", null,
+                            "Nationality is required for " + query.type() + " query #" + index);
+                }
+                if (query.eyeColor() == null) {
+                    throw new InvalidParameterException(prefix + "eyeColor", null,
+                            "Eye color is required for " + query.type() + " query #" + index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejects a trend range the service would not answer, before a snapshot is taken,
+     * like {@link #validateBatch}.
+     */
+    public void validateTrendRange(LocalDate from, LocalDate to, TimeBucket bucket) {
+        if (from == null) {
+            throw new InvalidParameterException("from", null, "Start date cannot be null");
+        }
+        if (to == null) {
+            throw new InvalidParameterException("to", null, "End date cannot be null");
+        }
+        if (bucket == null) {
+            throw new InvalidParameterException("bucket", null, "Bucket cannot be null");
+        }
+        if (from.isAfter(to)) {
+            throw new InvalidParameterException("from", from, "Start date " + from + " is after end date " + to);
+        }
+        long buckets = bucket.count(from, to);
+        if (buckets > maxTrendBuckets) {
+            throw new InvalidParameterException("to", to, "Range from " + from + " to " + to + " spans " + buckets
+                    + " " + bucket + " buckets, at most " + maxTrendBuckets + " are allowed");
+        }
+    }
+
+    /**
+     * Rejects a region the service would not answer, before a snapshot is taken, like
+     * {@link #validateBatch}.
+     */
+    public BoundingBoxDTO validateBoundingBox(Long minX, Long minY, Long maxX, Long maxY) {
+        if (minX == null) {
+            throw new InvalidParameterException("minX", null, "minX cannot be null");
+        }
+        if (minY == null) {
+            throw new InvalidParameterException("minY", null, "minY cannot be null");
+        }
+        if (maxX == null) {
+            throw new InvalidParameterException("maxX", null, "maxX cannot be null");
+        }
+        if (maxY == null) {
+            throw new InvalidParameterException("maxY", null, "maxY cannot be null");
+        }
+        if (minX > maxX) {
+            throw new InvalidParameterException("minX", minX, "minX " + minX + " is greater than maxX " + maxX);
+        }
+        if (minY > maxY) {
+            throw new InvalidParameterException("minY", minY, "minY " + minY + " is greater than maxY " + maxY);
+        }
+        return new BoundingBoxDTO(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Rejects a ranking size the service would not answer, before a snapshot is taken, like
+     * {@link #validateBatch}.
+     */
+    public void validateTopLocationsLimit(int limit) {
+        if (limit < 1 || limit > maxTopLocations) {
+            throw new InvalidParameterException("limit", limit,
+                    "Limit must be between 1 and " + maxTopLocations);
+        }
+    }
+
+    private void validateHairColor(Color hairColor) {
+        if (hairColor == null) {
+            throw new InvalidParameterException("hairColor", null, "Hair color cannot be null");
+        }
+    }
+
+    private void validateNationality(Country nationality) {
+        if (nationality == null) {
+            throw new InvalidParameterException("nationality", null, "Nationality cannot be null");
+        }
+    }
+
+    private void validateEyeColor(Color eyeColor) {
+        if (eyeColor == null) {
+            throw new InvalidParameterException("eyeColor", null, "Eye color cannot be null");
+        }
+    }
+
+    private PersonCountCube currentCube() {
+        return populationSnapshotService.getSnapshot().cube();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package ru.itmo.demography_service.service;
+
+import org.roaringbitmap.RoaringBitmap;
+import ru.itmo.demography_service.aggregation.PersonBitmapIndex;
+import ru.itmo.demography_service.dto.PersonFilterDTO;
+import ru.itmo.demography_service.dto.enums.PersonAttribute;
+import ru.itmo.demography_service.exception.InvalidParameterException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Validates a filter tree and turns it into bitmap operations over a {@link PersonBitmapIndex}.
+ * Every compiled node returns a freshly allocated bitmap, so parents may combine child results
+ * in place without touching the shared index bitmaps.
+ */
+public final class PersonFilterCompiler {
+
+    private static final int MAX_DEPTH = 32;
+
+    private PersonFilterCompiler() {
+    }
+
+    public static Function<PersonBitmapIndex, RoaringBitmap> compile(PersonFilterDTO filter, String path) {
+        return compile(filter, path, 1);
+    }
+
+    private static Function<PersonBitmapIndex, RoaringBitmap> compile(PersonFilterDTO filter, String path, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new InvalidParameterException(path, null,
+                    "Filter cannot be nested deeper than " + MAX_DEPTH + " levels");
+        }
+
+        int kinds = (filter.allOf() != null ? 1 : 0) + (filter.anyOf() != null ? 1 : 0)
+                + (filter.not() != null ? 1 : 0) + (filter.attribute() != null ? 1 : 0);
+        if (kinds != 1) {
+            throw new InvalidParameterException(path, null,
+                    "Filter at " + path + " must set exactly one of allOf, anyOf, not or attribute");
+        }
+
+        if (filter.allOf() != null) {
+            List<Function<PersonBitmapIndex, RoaringBitmap>> children = compileAll(filter.allOf(), path + ".allOf", depth);
+            return index -> {
+                RoaringBitmap result = children.get(0).apply(index);
+                for (int i = 1; i < children.size() && !result.isEmpty(); i++) {
+                    result.and(children.get(i).apply(index));
+                }
+                return result;
+            };
+        }
+        if (filter.anyOf() != null) {
+            List<Function<PersonBitmapIndex, RoaringBitmap>> children = compileAll(filter.anyOf(), path + ".anyOf", depth);
+            return index -> {
+                RoaringBitmap result = children.get(0).apply(index);
+                for (int i = 1; i < children.size(); i++) {
+                    result.or(children.get(i).apply(index));
+                }
+                return result;
+            };
+        }
+        if (filter.not() != null) {
+            Function<PersonBitmapIndex, RoaringBitmap> child = compile(filter.not(), path + ".not", depth + 1);
+            return index -> RoaringBitmap.andNot(index.all(), child.apply(index));
+        }
+        return compileLeaf(filter, path);
+    }
+
+    private static List<Function<PersonBitmapIndex, RoaringBitmap>> compileAll(
+            List<PersonFilterDTO> filters, String path, int depth) {
+
+        if (filters.isEmpty()) {
+            throw new InvalidParameterException(path, filters, "Filter list at " + path + " cannot be empty");
+        }
+
+        List<Function<PersonBitmapIndex, RoaringBitmap>> children = new ArrayList<>(filters.size());
+        for (int i = 0; i < filters.size(); i++) {
+            children.add(compile(filters.get(i), path + "[" + i + "]", depth + 1));
+        }
+        return children;
+    }
+
+    private static Function<PersonBitmapIndex, RoaringBitmap> compileLeaf(PersonFilterDTO filter, String path) {
+        PersonAttribute attribute = filter.attribute();
+
+        if ((filter.in() == null) == (filter.notIn() == null)) {
+            throw new InvalidParameterException(path, null,
+                    "Filter on " + attribute + " at " + path + " must set exactly one of in or notIn");
+        }
+
+        boolean negated = filter.notIn() != null;
+        String valuesPath = path + (negated ? ".notIn" : ".in");
+        List<String> names = negated ? filter.notIn() : filter.in();
+        if (names.isEmpty()) {
+            throw new InvalidParameterException(valuesPath, names, "Value list at " + valuesPath + " cannot be empty");
+        }
+
+        List<Enum<?>> values = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            values.add(parseValue(attribute, names.get(i), valuesPath + "[" + i + "]"));
+        }
+
+        return index -> {
+            RoaringBitmap matching = new RoaringBitmap();
+            for (Enum<?> value : values) {
+                matching.or(index.matching(attribute, value));
+            }
+            return negated ? RoaringBitmap.andNot(index.all(), matching) : matching;
+        };
+    }
+
+    private static Enum<?> parseValue(PersonAttribute attribute, String name, String path) {
+        if (name == null) {
+            return null;
+        }
+
+        Enum<?>[] constants = PersonBitmapIndex.valueType(attribute).getEnumConstants();
+        for (Enum<?> constant : constants) {
+            if (constant.name().equals(name)) {
+                return constant;
+            }
+        }
+
+        throw new InvalidParameterException(path, name, String.format(
+                "Invalid value '%s' for attribute %s. Expected one of: %s",
+                name, attribute, Arrays.toString(constants)));
+    }
+}
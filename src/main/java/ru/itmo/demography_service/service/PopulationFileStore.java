@@ -0,0 +1,104 @@
+package ru.itmo.demography_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationFile;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+
+/**
+ * Keeps the latest population on local disk so a restarted instance can answer from it
+ * before Person Service has been reached. Files are replaced atomically, and a file that
+ * fails validation is deleted instead of being served.
+ */
+@Component
+@Slf4j
+public class PopulationFileStore {
+
+    private final boolean enabled;
+    private final Path path;
+
+    private Population lastSaved;
+
+    public PopulationFileStore(
+            @Value("${demography.snapshot.file.enabled:false}") boolean enabled,
+            @Value("${demography.snapshot.file.path:${java.io.tmpdir}/demography-population.bin}") String path) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the persisted population, or {@code null} when persistence is disabled, no file
+     * exists or the file was discarded as corrupt or written by another format version
+     */
+    public PopulationFile.Contents restore() {
+        if (!enabled) {
+            return null;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            PopulationFile.Contents contents = PopulationFile.read(path);
+            synchronized (this) {
+                lastSaved = contents.population();
+            }
+            log.info("Restored {} persons saved at {} from {} in {} ms", contents.population().size(),
+                    contents.savedAt(), path, (System.nanoTime() - startedAt) / 1_000_000);
+            return contents;
+        } catch (NoSuchFileException e) {
+            log.info("No population file at {}, starting cold", path);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Discarding population file {}: {}", path, e.getMessage());
+            delete();
+            return null;
+        }
+    }
+
+    /**
+     * Writes {@code population} next to the current file and moves it into place, so readers
+     * never see a partially written file. Repeated calls with the same population are no-ops.
+     */
+    public synchronized void save(Population population, String upstreamEntityTag) {
+        if (!enabled || population == lastSaved) {
+            return;
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            PopulationFile.write(temporary, population, Instant.now(), upstreamEntityTag);
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            lastSaved = population;
+            log.debug("Saved {} persons to {}", population.size(), path);
+        } catch (IOException e) {
+            log.warn("Failed to save population to {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete population file {}: {}", path, e.getMessage());
+        }
+    }
+}
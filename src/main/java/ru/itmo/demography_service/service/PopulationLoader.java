@@ -0,0 +1,346 @@
+package ru.itmo.demography_service.service;
+
+import feign.FeignException;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import ru.itmo.demography_service.aggregation.PersonColumnsBuilder;
+import ru.itmo.demography_service.aggregation.PersonReservoir;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.PersonServiceClient;
+import ru.itmo.demography_service.client.PersonSink;
+import ru.itmo.demography_service.client.PersonStreamReader;
+import ru.itmo.demography_service.client.PersonWireFormat;
+import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PopulationLoader {
+
+    private final PersonServiceClient personServiceClient;
+    private final Environment environment;
+    private final DemographyMetrics demographyMetrics;
+
+    @Value("${demography.ingestion.mode:single}")
+    private String mode;
+
+    @Value("${demography.ingestion.page-size:50000}")
+    private int pageSize;
+
+    @Value("${demography.ingestion.parallelism:4}")
+    private int parallelism;
+
+    @Value("${demography.ingestion.page-max-attempts:3}")
+    private int pageMaxAttempts;
+
+    @Value("${demography.ingestion.page-retry-backoff-ms:200}")
+    private long pageRetryBackoffMs;
+
+    @Value("${demography.store.columnar:true}")
+    private boolean columnar;
+
+    @Value("${demography.store.measurements:false}")
+    private boolean measurements;
+
+    @Value("${demography.sample.size:40000}")
+    private int sampleSize;
+
+    @Value("${demography.grid.cell-size:100}")
+    private int gridCellSize;
+
+    private ExecutorService pageExecutor;
+
+    private final AtomicReference<TaggedPopulation> lastTagged = new AtomicReference<>();
+
+    @PostConstruct
+    void startPageExecutor() {
+        ThreadFactory threadFactory;
+        if (Threading.VIRTUAL.isActive(environment)) {
+            threadFactory = new VirtualThreadTaskExecutor("person-page-fetch-").getVirtualThreadFactory();
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            threadFactory = task -> {
+                Thread thread = new Thread(task, "person-page-fetch-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        pageExecutor = Executors.newFixedThreadPool(parallelism, threadFactory);
+    }
+
+    @PreDestroy
+    void stopPageExecutor() {
+        pageExecutor.shutdownNow();
+    }
+
+    /**
+     * Reads the whole population. In single mode the request is conditional on the entity tag
+     * Person Service sent with {@code previous}, and {@code previous} itself is returned when
+     * the upstream answers 304.
+     */
+    public Population load(Population previous) {
+        try {
+            return "paged".equalsIgnoreCase(mode) ? loadPaged() : loadSingle(previous);
+        } catch (Exception e) {
+            failFastIfCircuitOpen(e);
+            log.error("Failed to fetch persons from Person Service", e);
+            throw new PersonServiceException(
+                    "Unable to retrieve person data from external service", e);
+        }
+    }
+
+    /**
+     * Entity tag Person Service sent with {@code population}, {@code null} if it sent none or
+     * {@code population} was not the last one fetched in single mode.
+     */
+    public String upstreamEntityTag(Population population) {
+        TaggedPopulation tagged = lastTagged.get();
+        return tagged != null && tagged.population() == population ? tagged.etag() : null;
+    }
+
+    /**
+     * Adopts a population restored from disk, so the first fetch after a restart can still be
+     * conditional on the entity tag it was downloaded with.
+     */
+    public void restored(Population population, String upstreamEntityTag) {
+        lastTagged.set(upstreamEntityTag == null ? null : new TaggedPopulation(upstreamEntityTag, population));
+    }
+
+    /**
+     * Reads only the persons appended after {@code base} and applies them on top of it.
+     * Relies on {@code /persons} pages being ordered by creation: the tail must start right
+     * after the last person already counted and carry ids above the watermark.
+     *
+     * @return {@code base} itself when nothing changed, the merged population when the
+     * tail was applied, or {@code null} when the upstream diverged and a full resync is needed
+     */
+    public Population loadDelta(Population base) {
+        try {
+            Long count = personServiceClient.getPersonsCount();
+            if (count == null || count < base.size()) {
+                log.info("Person count went from {} to {}, delta sync not possible", base.size(), count);
+                return null;
+            }
+            if (count == base.size()) {
+                return base;
+            }
+
+            PopulationBuilder builder = base.toBuilder();
+            SplittableRandom sampling = new SplittableRandom();
+            int page = (int) (base.size() / pageSize);
+            int skip = (int) (base.size() % pageSize);
+            PageResult result;
+            do {
+                result = fetchPageWithRetry(page++, skip, sampling.split());
+                if (result.builder().minId() <= base.maxId()
+                        || result.builder().minCreationEpochSecond() < base.maxCreationEpochSecond()) {
+                    log.info("Persons below the id/creationDate watermark found on page {}, delta sync not possible",
+                            page - 1);
+                    return null;
+                }
+                builder.merge(result.builder());
+                skip = 0;
+            } while (result.persons() == pageSize);
+
+            if (builder.size() < count) {
+                log.info("Delta sync reached {} persons while Person Service reported {}", builder.size(), count);
+                return null;
+            }
+
+            log.info("Delta sync applied {} new persons", builder.size() - base.size());
+            return builder.build();
+
+        } catch (Exception e) {
+            failFastIfCircuitOpen(e);
+            log.error("Failed to fetch new persons from Person Service", e);
+            throw new PersonServiceException(
+                    "Unable to retrieve person data from external service", e);
+        }
+    }
+
+    private Population loadSingle(Population previous) throws IOException {
+        String ifNoneMatch = previous == null ? null : upstreamEntityTag(previous);
+
+        PopulationBuilder builder = newBuilder(new SplittableRandom());
+        String etag;
+        try (Response response = personServiceClient.streamAllPersons(ifNoneMatch)) {
+            if (ifNoneMatch != null && response.status() == 304) {
+                log.debug("Person service reported the population unchanged ({})", ifNoneMatch);
+                return previous;
+            }
+            long persons = read(response, "streamAllPersons()", builder);
+            demographyMetrics.upstreamPersonsRead("streamAllPersons", persons);
+            etag = header(response, "ETag");
+        }
+
+        Population population = builder.build();
+        lastTagged.set(etag == null ? null : new TaggedPopulation(etag, population));
+        return population;
+    }
+
+    private Population loadPaged() {
+        Long expected = personServiceClient.getPersonsCount();
+        if (expected == null || expected < 0) {
+            throw new PersonServiceException("Person service returned invalid count: " + expected);
+        }
+
+        int pages = (int) ((expected + pageSize - 1) / pageSize);
+        log.info("Fetching {} persons in {} pages of {} with parallelism {}",
+                expected, pages, pageSize, parallelism);
+
+        // One root per load, split on this thread: every page samples from its own stream.
+        SplittableRandom sampling = new SplittableRandom();
+        List<CompletableFuture<PageResult>> futures = new ArrayList<>(pages);
+        for (int page = 0; page < pages; page++) {
+            int pageNumber = page;
+            SplittableRandom pageSampling = sampling.split();
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> fetchPageWithRetry(pageNumber, 0, pageSampling), pageExecutor));
+        }
+
+        PopulationBuilder builder = newBuilder(sampling);
+        PageResult last = null;
+        try {
+            for (CompletableFuture<PageResult> future : futures) {
+                last = future.join();
+                builder.merge(last.builder());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        // The population may have grown since the count was taken: keep reading until a short page.
+        int page = pages;
+        while (last == null || last.persons() == pageSize) {
+            last = fetchPageWithRetry(page++, 0, sampling.split());
+            builder.merge(last.builder());
+        }
+
+        if (builder.size() != expected) {
+            log.warn("Paged fetch read {} persons while Person Service reported {}", builder.size(), expected);
+        }
+        return builder.build();
+    }
+
+    private PopulationBuilder newBuilder(SplittableRandom sampling) {
+        return new PopulationBuilder(columnar ? new PersonColumnsBuilder(measurements) : null,
+                sampleSize > 0 ? new PersonReservoir(sampleSize, sampling) : null, gridCellSize);
+    }
+
+    private PageResult fetchPageWithRetry(int page, int skip, SplittableRandom sampling) {
+        for (int attempt = 1; ; attempt++) {
+            PopulationBuilder builder = newBuilder(sampling.split());
+            PersonSink sink = skip == 0 ? builder : skipping(skip, builder);
+            try (Response response = personServiceClient.streamPersonsPage(page, pageSize)) {
+                long persons = read(response, "streamPersonsPage(" + page + ")", sink);
+                demographyMetrics.upstreamPersonsRead("streamPersonsPage", persons);
+                return new PageResult(builder, persons);
+            } catch (Exception e) {
+                if (isCircuitOpen(e)) {
+                    throw e instanceof RuntimeException runtime ? runtime : new PersonServiceException(e.getMessage(), e);
+                }
+                if (attempt >= pageMaxAttempts) {
+                    throw new PersonServiceException(
+                            "Failed to fetch persons page " + page + " after " + attempt + " attempts", e);
+                }
+                log.warn("Attempt {} to fetch persons page {} failed: {}", attempt, page, e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * An open circuit breaker means Person Service was recently failing: report it as such
+     * instead of as a fetch error, without the stack trace that would flood the log while
+     * the breaker stays open.
+     */
+    private static void failFastIfCircuitOpen(Exception e) {
+        if (isCircuitOpen(e)) {
+            log.warn("Person service circuit breaker is open, not fetching persons");
+            throw new PersonServiceException(
+                    "Person service is unavailable, circuit breaker is open", "CIRCUIT_OPEN", e);
+        }
+    }
+
+    private static boolean isCircuitOpen(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof CallNotPermittedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(pageRetryBackoffMs * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersonServiceException("Interrupted while fetching persons", e);
+        }
+    }
+
+    private static long read(Response response, String method, PersonSink sink) throws IOException {
+        if (response.status() / 100 != 2) {
+            throw FeignException.errorStatus("PersonServiceClient#" + method, response);
+        }
+
+        if (response.body() == null) {
+            log.warn("Person service returned an empty body instead of a list");
+            throw new PersonServiceException("Person service returned invalid data");
+        }
+
+        PersonWireFormat format = PersonWireFormat.of(header(response, "Content-Type"));
+        try (InputStream body = response.body().asInputStream()) {
+            return PersonStreamReader.read(body, format, sink);
+        }
+    }
+
+    private static String header(Response response, String name) {
+        return response.headers().entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(name))
+                .flatMap(entry -> entry.getValue().stream())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static PersonSink skipping(int skip, PersonSink sink) {
+        int[] seen = {0};
+        return person -> {
+            if (seen[0]++ >= skip) {
+                sink.accept(person);
+            }
+        };
+    }
+
+    private record PageResult(PopulationBuilder builder, long persons) {
+    }
+
+    private record TaggedPopulation(String etag, Population population) {
+    }
+}
@@ -0,0 +1,22 @@
+package ru.itmo.demography_service.service;
+
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.Population;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public record PopulationSnapshot(
+        long version,
+        Instant fetchedAt,
+        Instant fullSyncAt,
+        Population population
+) {
+    public PersonCountCube cube() {
+        return population.cube();
+    }
+
+    public Duration age() {
+        return Duration.between(fetchedAt, Instant.now());
+    }
+}
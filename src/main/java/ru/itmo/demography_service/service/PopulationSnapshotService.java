@@ -0,0 +1,248 @@
+package ru.itmo.demography_service.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationFile;
+import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PopulationSnapshotService {
+
+    private final PopulationLoader populationLoader;
+    private final TaskScheduler taskScheduler;
+    private final DemographyMetrics demographyMetrics;
+    private final PopulationFileStore populationFileStore;
+
+    private final AtomicReference<PopulationSnapshot> current = new AtomicReference<>();
+    private final AtomicBoolean backgroundRefreshScheduled = new AtomicBoolean();
+    private final AtomicReference<CompletableFuture<PopulationSnapshot>> inFlight = new AtomicReference<>();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    @Value("${demography.snapshot.max-staleness-ms:300000}")
+    private long maxStalenessMs;
+
+    @Value("${demography.sync.mode:full}")
+    private String syncMode;
+
+    @Value("${demography.sync.full-resync-interval-ms:900000}")
+    private long fullResyncIntervalMs;
+
+    /**
+     * Serves the population persisted by the previous run until the first refresh reconciles
+     * it with Person Service. The snapshot keeps the time it was saved, so an old file is
+     * reported as stale and refreshed in the background on first use.
+     */
+    @PostConstruct
+    void restoreFromFile() {
+        PopulationFile.Contents contents = populationFileStore.restore();
+        if (contents == null) {
+            return;
+        }
+
+        Population population = contents.population();
+        populationLoader.restored(population, contents.upstreamEntityTag());
+        current.compareAndSet(null, new PopulationSnapshot(1, contents.savedAt(), contents.savedAt(), population));
+        demographyMetrics.populationLoaded(population);
+        logNullAttributes(population.cube());
+    }
+
+    public PopulationSnapshot getSnapshot() {
+        PopulationSnapshot snapshot = current.get();
+
+        if (snapshot == null) {
+            return refreshIfOlderThan(null);
+        }
+
+        if (isStale(snapshot)) {
+            scheduleBackgroundRefresh();
+        }
+
+        return snapshot;
+    }
+
+    @Scheduled(
+            initialDelayString = "${demography.snapshot.initial-delay-ms:0}",
+            fixedDelayString = "${demography.snapshot.refresh-interval-ms:60000}"
+    )
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (PersonServiceException e) {
+            log.warn("Scheduled population refresh failed, keeping version {}: {}",
+                    currentVersion(), e.getMessage());
+        }
+    }
+
+    public PopulationSnapshot refresh() {
+        return refreshIfOlderThan(current.get());
+    }
+
+    /**
+     * Loads the next version unless one newer than {@code seen} was published since the caller
+     * looked, so a caller that lost the race to a just-finished refresh does not start a
+     * second fetch. Concurrent callers join the refresh in flight.
+     */
+    PopulationSnapshot refreshIfOlderThan(PopulationSnapshot seen) {
+        CompletableFuture<PopulationSnapshot> leader = new CompletableFuture<>();
+        CompletableFuture<PopulationSnapshot> running = inFlight.compareAndExchange(null, leader);
+
+        if (running != null) {
+            demographyMetrics.refreshCallerCoalesced();
+            return awaitInFlight(running);
+        }
+
+        try {
+            PopulationSnapshot latest = current.get();
+            PopulationSnapshot snapshot = latest != null && latest != seen ? latest : loadNextVersion();
+            leader.complete(snapshot);
+            return snapshot;
+        } catch (Throwable e) {
+            // Errors too: coalesced callers block on the future until it is completed.
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private PopulationSnapshot loadNextVersion() {
+        demographyMetrics.snapshotRefreshStarted();
+
+        PopulationSnapshot latest = current.get();
+        Instant now = Instant.now();
+
+        Population population = null;
+        if (latest != null && isIncrementalSyncDue(latest, now)) {
+            population = demographyMetrics.timeSync("incremental",
+                    () -> populationLoader.loadDelta(latest.population()));
+        }
+
+        boolean fullSync = population == null;
+        if (fullSync) {
+            population = demographyMetrics.timeSync("full",
+                    () -> populationLoader.load(latest == null ? null : latest.population()));
+        }
+
+        PopulationSnapshot snapshot;
+        if (latest != null && population == latest.population()) {
+            snapshot = new PopulationSnapshot(
+                    latest.version(), now, fullSync ? now : latest.fullSyncAt(), population);
+            log.debug("Population unchanged, keeping snapshot version {}", latest.version());
+        } else {
+            long version = latest == null ? 1 : latest.version() + 1;
+            snapshot = new PopulationSnapshot(
+                    version, now, fullSync ? now : latest.fullSyncAt(), population);
+            logNullAttributes(population.cube());
+            demographyMetrics.populationLoaded(population);
+            log.info("Population snapshot version {} loaded ({} sync): {} persons",
+                    version, fullSync ? "full" : "incremental", population.size());
+            if (population.columns() != null) {
+                log.info("Columnar store of version {} retains {} bytes, bitmap index {} bytes",
+                        version, population.columns().retainedBytes(), population.index().sizeInBytes());
+            }
+        }
+
+        current.set(snapshot);
+        if (snapshot.version() != (latest == null ? 0 : latest.version())) {
+            persist(population);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Weak entity tag of one representation computed from {@code snapshot}, such as its JSON
+     * or CBOR body. Versions restart with the process, so the tag also carries this instance's
+     * start time. The tag is weak because the body is not byte-for-byte fixed by it: Tomcat
+     * does not compress responses that carry a strong tag, and a gzipped body is a different
+     * byte sequence anyway.
+     */
+    public String entityTag(PopulationSnapshot snapshot, String representation) {
+        return "W/\"" + epoch + "-" + snapshot.version() + "-" + representation + "\"";
+    }
+
+    /**
+     * Whether {@code snapshot} is older than the configured staleness bound, which happens
+     * while a refresh is pending or Person Service is failing and the last good version is
+     * still being served.
+     */
+    public boolean isStale(PopulationSnapshot snapshot) {
+        return snapshot.age().compareTo(Duration.ofMillis(maxStalenessMs)) > 0;
+    }
+
+    private boolean isIncrementalSyncDue(PopulationSnapshot latest, Instant now) {
+        return "incremental".equalsIgnoreCase(syncMode)
+                && Duration.between(latest.fullSyncAt(), now).toMillis() < fullResyncIntervalMs;
+    }
+
+    private PopulationSnapshot awaitInFlight(CompletableFuture<PopulationSnapshot> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new PersonServiceException("Population refresh failed", e.getCause());
+        }
+    }
+
+    private void scheduleBackgroundRefresh() {
+        if (!backgroundRefreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        taskScheduler.schedule(() -> {
+            try {
+                scheduledRefresh();
+            } finally {
+                backgroundRefreshScheduled.set(false);
+            }
+        }, Instant.now());
+    }
+
+    private void persist(Population population) {
+        if (!populationFileStore.isEnabled()) {
+            return;
+        }
+        String upstreamEntityTag = populationLoader.upstreamEntityTag(population);
+        taskScheduler.schedule(() -> {
+            PopulationSnapshot latest = current.get();
+            if (latest != null && latest.population() == population) {
+                populationFileStore.save(population, upstreamEntityTag);
+            }
+        }, Instant.now());
+    }
+
+    private long currentVersion() {
+        PopulationSnapshot snapshot = current.get();
+        return snapshot == null ? 0 : snapshot.version();
+    }
+
+    private void logNullAttributes(PersonCountCube cube) {
+        long nullNationalityCount = cube.countByNationality(null);
+        long nullHairColorCount = cube.countByHairColor(null);
+        long nullEyeColorCount = cube.countByEyeColor(null);
+
+        if (nullNationalityCount > 0 || nullHairColorCount > 0 || nullEyeColorCount > 0) {
+            log.warn("Found {} persons with null nationality, {} with null hair color, and {} with null eye color",
+                    nullNationalityCount, nullHairColorCount, nullEyeColorCount);
+        }
+    }
+}
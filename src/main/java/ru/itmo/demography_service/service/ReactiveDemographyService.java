@@ -0,0 +1,54 @@
+package ru.itmo.demography_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.ReactivePersonServiceClient;
+import ru.itmo.demography_service.dto.HairColorStatsDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorStatsDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveDemographyService {
+
+    private final ReactivePersonServiceClient reactivePersonServiceClient;
+    private final DemographyMetrics demographyMetrics;
+
+    private final AtomicReference<Mono<PersonCountCube>> inFlight = new AtomicReference<>();
+
+    public Mono<HairColorStatsDTO> calculateHairColorPercentage(Color hairColor) {
+        return streamCube()
+                .map(cube -> StatsCalculator.hairColorStats(cube, hairColor));
+    }
+
+    public Mono<NationalityEyeColorStatsDTO> calculateNationalityEyeColorStats(
+            Country nationality, Color eyeColor) {
+
+        return streamCube()
+                .map(cube -> StatsCalculator.nationalityEyeColorStats(cube, nationality, eyeColor));
+    }
+
+    private Mono<PersonCountCube> streamCube() {
+        Mono<PersonCountCube> stream = reactivePersonServiceClient.streamAllPersons(PopulationBuilder::new)
+                .map(builder -> builder.build().cube())
+                .doOnNext(cube -> log.info("Streamed {} persons from Person Service", cube.total()))
+                .doFinally(signal -> inFlight.set(null))
+                .cache();
+
+        Mono<PersonCountCube> running = inFlight.compareAndExchange(null, stream);
+        if (running != null) {
+            demographyMetrics.reactiveStreamCallerCoalesced();
+            return running;
+        }
+        return stream;
+    }
+}
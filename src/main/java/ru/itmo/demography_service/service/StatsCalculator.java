@@ -0,0 +1,272 @@
+package ru.itmo.demography_service.service;
+
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.PersonGrid;
+import ru.itmo.demography_service.aggregation.PersonLocationCounts;
+import ru.itmo.demography_service.aggregation.PersonReservoir;
+import ru.itmo.demography_service.aggregation.PersonTimeline;
+import ru.itmo.demography_service.dto.BoundingBoxDTO;
+import ru.itmo.demography_service.dto.EstimateDTO;
+import ru.itmo.demography_service.dto.HairColorDistributionDTO;
+import ru.itmo.demography_service.dto.HairColorStatsDTO;
+import ru.itmo.demography_service.dto.HairColorTrendDTO;
+import ru.itmo.demography_service.dto.HairColorTrendPointDTO;
+import ru.itmo.demography_service.dto.LocationCountDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorMatrixDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorStatsDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorTrendDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorTrendPointDTO;
+import ru.itmo.demography_service.dto.RegionHairColorDistributionDTO;
+import ru.itmo.demography_service.dto.TopLocationsDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.TimeBucket;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+public final class StatsCalculator {
+
+    private static final PersonCountCube EMPTY = new PersonCountCube();
+
+    private StatsCalculator() {
+    }
+
+    public static HairColorStatsDTO hairColorStats(PersonCountCube cube, Color hairColor) {
+        long totalCount = cube.total();
+
+        if (totalCount == 0) {
+            return new HairColorStatsDTO(hairColor, 0.0, 0L, 0L);
+        }
+
+        long colorCount = cube.countByHairColor(hairColor);
+        double percentage = (colorCount * 100.0) / totalCount;
+
+        return new HairColorStatsDTO(hairColor, percentage, totalCount, colorCount);
+    }
+
+    public static NationalityEyeColorStatsDTO nationalityEyeColorStats(
+            PersonCountCube cube, Country nationality, Color eyeColor) {
+
+        long totalNationalityCount = cube.countByNationality(nationality);
+
+        if (totalNationalityCount == 0) {
+            return new NationalityEyeColorStatsDTO(nationality, eyeColor, 0L, 0L);
+        }
+
+        long eyeColorCount = cube.countByNationalityAndEyeColor(nationality, eyeColor);
+
+        return new NationalityEyeColorStatsDTO(nationality, eyeColor, eyeColorCount, totalNationalityCount);
+    }
+
+    /**
+     * Estimates {@link #hairColorStats} from a uniform sample; the interval bounds the percentage.
+     */
+    public static HairColorStatsDTO approximateHairColorStats(
+            PersonReservoir sample, Color hairColor, double confidenceLevel) {
+
+        long total = sample.populationSize();
+        int n = sample.size();
+        if (n == 0) {
+            return new HairColorStatsDTO(hairColor, 0.0, 0L, 0L, new EstimateDTO(0, confidenceLevel, 0.0, 0.0));
+        }
+
+        int hits = sample.countByHairColor(hairColor);
+        double[] interval = proportionInterval(hits, n, total, confidenceLevel);
+
+        return new HairColorStatsDTO(hairColor, hits * 100.0 / n, total, Math.round((double) hits * total / n),
+                new EstimateDTO(n, confidenceLevel, interval[0] * 100.0, interval[1] * 100.0));
+    }
+
+    /**
+     * Estimates {@link #nationalityEyeColorStats} from a uniform sample; the interval bounds the count.
+     */
+    public static NationalityEyeColorStatsDTO approximateNationalityEyeColorStats(
+            PersonReservoir sample, Country nationality, Color eyeColor, double confidenceLevel) {
+
+        long total = sample.populationSize();
+        int n = sample.size();
+        if (n == 0) {
+            return new NationalityEyeColorStatsDTO(nationality, eyeColor, 0L, 0L,
+                    new EstimateDTO(0, confidenceLevel, 0.0, 0.0));
+        }
+
+        int hits = sample.countByNationalityAndEyeColor(nationality, eyeColor);
+        int inNationality = sample.countByNationality(nationality);
+        double[] interval = proportionInterval(hits, n, total, confidenceLevel);
+
+        return new NationalityEyeColorStatsDTO(nationality, eyeColor,
+                Math.round((double) hits * total / n), Math.round((double) inNationality * total / n),
+                new EstimateDTO(n, confidenceLevel, interval[0] * total, interval[1] * total));
+    }
+
+    public static HairColorDistributionDTO hairColorDistribution(PersonCountCube cube, long populationVersion) {
+        Map<Color, Long> counts = new EnumMap<>(Color.class);
+        Map<Color, Double> percentages = new EnumMap<>(Color.class);
+
+        for (Color color : Color.values()) {
+            long count = cube.countByHairColor(color);
+            counts.put(color, count);
+            percentages.put(color, cube.total() == 0 ? 0.0 : (count * 100.0) / cube.total());
+        }
+
+        return new HairColorDistributionDTO(
+                populationVersion, cube.total(), counts, percentages, cube.countByHairColor(null));
+    }
+
+    public static NationalityEyeColorMatrixDTO nationalityEyeColorMatrix(
+            PersonCountCube cube, long populationVersion) {
+
+        Country[] nationalities = Country.values();
+        Color[] eyeColors = Color.values();
+
+        long[][] counts = new long[nationalities.length][eyeColors.length];
+        long[] nationalityTotals = new long[nationalities.length];
+        long[] eyeColorTotals = new long[eyeColors.length];
+
+        for (int row = 0; row < nationalities.length; row++) {
+            for (int column = 0; column < eyeColors.length; column++) {
+                counts[row][column] = cube.countByNationalityAndEyeColor(nationalities[row], eyeColors[column]);
+            }
+            nationalityTotals[row] = cube.countByNationality(nationalities[row]);
+        }
+        for (int column = 0; column < eyeColors.length; column++) {
+            eyeColorTotals[column] = cube.countByEyeColor(eyeColors[column]);
+        }
+
+        return new NationalityEyeColorMatrixDTO(populationVersion, List.of(nationalities), List.of(eyeColors),
+                counts, nationalityTotals, eyeColorTotals, cube.total());
+    }
+
+    /**
+     * {@link #hairColorStats} per bucket of persons created from {@code from} to {@code to}
+     * inclusive. Edge buckets are clipped to the range.
+     */
+    public static HairColorTrendDTO hairColorTrend(PersonTimeline timeline, Color hairColor,
+                                                   LocalDate from, LocalDate to, TimeBucket bucket,
+                                                   long populationVersion) {
+
+        NavigableMap<LocalDate, PersonCountCube> rollup = timeline.rollup(from, to, bucket);
+        List<HairColorTrendPointDTO> points = new ArrayList<>();
+
+        for (LocalDate start = bucket.start(from); !start.isAfter(to); start = bucket.next(start)) {
+            HairColorStatsDTO stats = hairColorStats(rollup.getOrDefault(start, EMPTY), hairColor);
+            points.add(new HairColorTrendPointDTO(
+                    clipStart(start, from), clipEnd(bucket.next(start), to),
+                    stats.totalPersons(), stats.personsWithHairColor(), stats.percentage()));
+        }
+
+        return new HairColorTrendDTO(populationVersion, hairColor, bucket, points);
+    }
+
+    /**
+     * {@link #nationalityEyeColorStats} per bucket of persons created from {@code from} to
+     * {@code to} inclusive. Edge buckets are clipped to the range.
+     */
+    public static NationalityEyeColorTrendDTO nationalityEyeColorTrend(PersonTimeline timeline,
+                                                                       Country nationality, Color eyeColor,
+                                                                       LocalDate from, LocalDate to,
+                                                                       TimeBucket bucket, long populationVersion) {
+
+        NavigableMap<LocalDate, PersonCountCube> rollup = timeline.rollup(from, to, bucket);
+        List<NationalityEyeColorTrendPointDTO> points = new ArrayList<>();
+
+        for (LocalDate start = bucket.start(from); !start.isAfter(to); start = bucket.next(start)) {
+            NationalityEyeColorStatsDTO stats =
+                    nationalityEyeColorStats(rollup.getOrDefault(start, EMPTY), nationality, eyeColor);
+            points.add(new NationalityEyeColorTrendPointDTO(
+                    clipStart(start, from), clipEnd(bucket.next(start), to),
+                    stats.count(), stats.totalPersonsInNationality()));
+        }
+
+        return new NationalityEyeColorTrendDTO(populationVersion, nationality, eyeColor, bucket, points);
+    }
+
+    public static RegionHairColorDistributionDTO regionHairColorDistribution(
+            PersonGrid grid, BoundingBoxDTO box, long populationVersion) {
+
+        PersonGrid.Region region = grid.query(box.minX(), box.minY(), box.maxX(), box.maxY());
+        return new RegionHairColorDistributionDTO(
+                new BoundingBoxDTO(region.minX(), region.minY(), region.maxX(), region.maxY()),
+                region.cellsTouched(),
+                hairColorDistribution(region.cube(), populationVersion));
+    }
+
+    public static TopLocationsDTO topLocations(
+            PersonLocationCounts locations, Country nationality, int limit, long populationVersion) {
+
+        List<LocationCountDTO> top = locations.top(nationality, limit).stream()
+                .map(location -> new LocationCountDTO(location.name(), location.count()))
+                .toList();
+        return new TopLocationsDTO(populationVersion, nationality, top);
+    }
+
+    private static LocalDate clipStart(LocalDate start, LocalDate from) {
+        return start.isBefore(from) ? from : start;
+    }
+
+    private static LocalDate clipEnd(LocalDate nextStart, LocalDate to) {
+        LocalDate end = nextStart.minusDays(1);
+        return end.isAfter(to) ? to : end;
+    }
+
+    /**
+     * Wilson score interval of the proportion {@code hits / n} for a sample drawn without
+     * replacement from {@code population} persons. The finite population correction shrinks
+     * the interval to a point once the sample is the whole population.
+     */
+    static double[] proportionInterval(int hits, int n, long population, double confidenceLevel) {
+        double p = (double) hits / n;
+        if (n >= population) {
+            return new double[]{p, p};
+        }
+
+        double effectiveN = n * (population - 1.0) / (population - n);
+        double z = normalQuantile(1.0 - (1.0 - confidenceLevel) / 2.0);
+        double z2 = z * z;
+        double denominator = 1.0 + z2 / effectiveN;
+        double center = (p + z2 / (2.0 * effectiveN)) / denominator;
+        double halfWidth = z * Math.sqrt(p * (1.0 - p) / effectiveN + z2 / (4.0 * effectiveN * effectiveN))
+                / denominator;
+
+        return new double[]{Math.max(0.0, center - halfWidth), Math.min(1.0, center + halfWidth)};
+    }
+
+    /**
+     * Inverse of the standard normal distribution function (Acklam's rational approximation,
+     * relative error below 1.2e-9).
+     */
+    static double normalQuantile(double probability) {
+        if (probability <= 0.0 || probability >= 1.0) {
+            throw new IllegalArgumentException("Probability must be in (0, 1): " + probability);
+        }
+
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        final double low = 0.02425;
+
+        if (probability < low) {
+            double q = Math.sqrt(-2.0 * Math.log(probability));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1.0);
+        }
+        if (probability > 1.0 - low) {
+            return -normalQuantile(1.0 - probability);
+        }
+
+        double q = probability - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1.0);
+    }
+}
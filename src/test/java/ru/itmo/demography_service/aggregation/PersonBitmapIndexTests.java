@@ -0,0 +1,64 @@
+package ru.itmo.demography_service.aggregation;
+
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.PersonAttribute;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonBitmapIndexTests {
+
+	@Test
+	void deltaSyncExtendsTheIndexToWhatARebuildWouldProduce() {
+		List<PersonDTO> persons = new SyntheticPopulation(17).persons(80_000);
+		Population base = build(persons.subList(0, 70_000));
+
+		PopulationBuilder delta = base.toBuilder();
+		SyntheticPopulation.ingest(persons.subList(70_000, 80_000), delta);
+		Population extended = delta.build();
+		PersonBitmapIndex rebuilt = PersonBitmapIndex.of(extended.columns());
+
+		assertThat(extended.index().size()).isEqualTo(80_000);
+		assertThat(extended.index().all().getLongCardinality()).isEqualTo(80_000);
+		for (PersonAttribute attribute : PersonAttribute.values()) {
+			for (Enum<?> value : valuesWithNull(attribute)) {
+				assertThat(extended.index().matching(attribute, value))
+						.as("%s = %s", attribute, value)
+						.isEqualTo(rebuilt.matching(attribute, value));
+			}
+		}
+		assertThat(base.index().size()).isEqualTo(70_000);
+		assertThat(base.index().all().getLongCardinality()).isEqualTo(70_000);
+	}
+
+	@Test
+	void bitmapsOfValuesNoAppendedPersonHasAreShared() {
+		Population base = build(new SyntheticPopulation(19).persons(5_000));
+
+		PopulationBuilder delta = base.toBuilder();
+		SyntheticPopulation.ingest(new SyntheticPopulation(23, 0.0).persons(100), delta);
+		PersonBitmapIndex extended = delta.build().index();
+
+		assertThat(extended.matching(PersonAttribute.HAIR_COLOR, null))
+				.isSameAs(base.index().matching(PersonAttribute.HAIR_COLOR, null));
+		assertThat(extended.matching(PersonAttribute.NATIONALITY, null))
+				.isSameAs(base.index().matching(PersonAttribute.NATIONALITY, null));
+	}
+
+	private static Population build(List<PersonDTO> persons) {
+		PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(false));
+		SyntheticPopulation.ingest(persons, builder);
+		return builder.build();
+	}
+
+	private static List<Enum<?>> valuesWithNull(PersonAttribute attribute) {
+		List<Enum<?>> values = new ArrayList<>(Arrays.asList(PersonBitmapIndex.valueType(attribute).getEnumConstants()));
+		values.add(null);
+		return values;
+	}
+}
@@ -0,0 +1,85 @@
+package ru.itmo.demography_service.aggregation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonColumnsTests {
+
+	private static final List<PersonDTO> PERSONS = new SyntheticPopulation(13).persons(1_100);
+
+	@Test
+	void deltaSyncAppendsIntoThePublishedArraysWithoutChangingThem() {
+		Population first = build(PERSONS.subList(0, 1_000));
+
+		PopulationBuilder delta = first.toBuilder();
+		SyntheticPopulation.ingest(PERSONS.subList(1_000, 1_020), delta);
+		Population second = delta.build();
+
+		assertThat(hairColors(second.columns()))
+				.isSameAs(hairColors(first.columns()));
+		assertMatches(first.columns(), PERSONS.subList(0, 1_000));
+		assertMatches(second.columns(), PERSONS.subList(0, 1_020));
+	}
+
+	@Test
+	void laterBuildersFromTheSameColumnsWorkOnCopies() {
+		Population first = build(PERSONS.subList(0, 1_000));
+
+		PopulationBuilder abandoned = first.toBuilder();
+		SyntheticPopulation.ingest(PERSONS.subList(1_050, 1_100), abandoned);
+		PopulationBuilder retried = first.toBuilder();
+		SyntheticPopulation.ingest(PERSONS.subList(1_000, 1_050), retried);
+		Population second = retried.build();
+
+		assertThat(hairColors(second.columns()))
+				.isNotSameAs(hairColors(first.columns()));
+		assertMatches(second.columns(), PERSONS.subList(0, 1_050));
+		assertMatches(abandoned.build().columns(), concat(PERSONS.subList(0, 1_000), PERSONS.subList(1_050, 1_100)));
+	}
+
+	@Test
+	void appendingAfterBuildLeavesTheBuiltColumnsAlone() {
+		PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(true));
+		SyntheticPopulation.ingest(PERSONS.subList(0, 1_000), builder);
+		Population built = builder.build();
+
+		SyntheticPopulation.ingest(PERSONS.subList(1_000, 1_020), builder);
+		PopulationBuilder delta = built.toBuilder();
+		SyntheticPopulation.ingest(PERSONS.subList(1_050, 1_070), delta);
+
+		assertMatches(builder.build().columns(), PERSONS.subList(0, 1_020));
+		assertMatches(delta.build().columns(), concat(PERSONS.subList(0, 1_000), PERSONS.subList(1_050, 1_070)));
+	}
+
+	private static Population build(List<PersonDTO> persons) {
+		PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(true));
+		SyntheticPopulation.ingest(persons, builder);
+		return builder.build();
+	}
+
+	private static Object hairColors(PersonColumns columns) {
+		return ReflectionTestUtils.getField(columns, "hairColors");
+	}
+
+	private static void assertMatches(PersonColumns columns, List<PersonDTO> persons) {
+		assertThat(columns.size()).isEqualTo(persons.size());
+		for (int i = 0; i < persons.size(); i++) {
+			PersonDTO person = persons.get(i);
+			assertThat(columns.hairColor(i)).isEqualTo(person.hairColor());
+			assertThat(columns.eyeColor(i)).isEqualTo(person.eyeColor());
+			assertThat(columns.nationality(i)).isEqualTo(person.nationality());
+			assertThat(columns.height(i)).isEqualTo(person.height());
+		}
+	}
+
+	private static List<PersonDTO> concat(List<PersonDTO> head, List<PersonDTO> tail) {
+		return Stream.concat(head.stream(), tail.stream()).toList();
+	}
+}
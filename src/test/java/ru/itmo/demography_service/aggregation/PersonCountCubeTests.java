@@ -0,0 +1,76 @@
+package ru.itmo.demography_service.aggregation;
+
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonCountCubeTests {
+
+	private static final List<PersonDTO> PERSONS = new SyntheticPopulation(37).persons(10_000);
+
+	@Test
+	void everyMarginalMatchesCountingThePersons() {
+		PersonCountCube cube = PersonCountCube.of(PERSONS);
+
+		assertThat(cube.total()).isEqualTo(PERSONS.size());
+		for (Color color : withNull(Color.values())) {
+			assertThat(cube.countByHairColor(color)).as("hair %s", color)
+					.isEqualTo(PERSONS.stream().filter(person -> person.hairColor() == color).count());
+			assertThat(cube.countByEyeColor(color)).as("eyes %s", color)
+					.isEqualTo(PERSONS.stream().filter(person -> person.eyeColor() == color).count());
+		}
+		for (Country nationality : withNull(Country.values())) {
+			assertThat(cube.countByNationality(nationality)).as("nationality %s", nationality)
+					.isEqualTo(PERSONS.stream().filter(person -> person.nationality() == nationality).count());
+			for (Color eyeColor : withNull(Color.values())) {
+				assertThat(cube.countByNationalityAndEyeColor(nationality, eyeColor))
+						.as("nationality %s, eyes %s", nationality, eyeColor)
+						.isEqualTo(PERSONS.stream()
+								.filter(person -> person.nationality() == nationality && person.eyeColor() == eyeColor)
+								.count());
+			}
+		}
+	}
+
+	@Test
+	void mergingCubesOfTwoHalvesGivesTheCubeOfTheWhole() {
+		PersonCountCube merged = PersonCountCube.of(PERSONS.subList(0, 4_000));
+		merged.merge(PersonCountCube.of(PERSONS.subList(4_000, PERSONS.size())));
+
+		PersonCountCube whole = PersonCountCube.of(PERSONS);
+		for (Country nationality : withNull(Country.values())) {
+			for (Color hairColor : withNull(Color.values())) {
+				for (Color eyeColor : withNull(Color.values())) {
+					assertThat(merged.count(nationality, hairColor, eyeColor))
+							.isEqualTo(whole.count(nationality, hairColor, eyeColor));
+				}
+			}
+		}
+	}
+
+	@Test
+	void aCopyIsIndependentOfItsOriginal() {
+		PersonCountCube original = PersonCountCube.of(PERSONS);
+		PersonCountCube copy = original.copy();
+
+		copy.add(Country.INDIA, Color.BLUE, null);
+
+		assertThat(copy.count(Country.INDIA, Color.BLUE, null))
+				.isEqualTo(original.count(Country.INDIA, Color.BLUE, null) + 1);
+		assertThat(original.total()).isEqualTo(PERSONS.size());
+	}
+
+	private static <E> List<E> withNull(E[] values) {
+		List<E> all = new ArrayList<>(Arrays.asList(values));
+		all.add(null);
+		return all;
+	}
+}
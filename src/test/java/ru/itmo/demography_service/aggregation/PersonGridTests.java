@@ -0,0 +1,93 @@
+package ru.itmo.demography_service.aggregation;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonGridTests {
+
+	private static List<PersonDTO> persons;
+	private static Population population;
+
+	@BeforeAll
+	static void loadPopulation() {
+		persons = new SyntheticPopulation(5).persons(20_000);
+		PopulationBuilder builder = new PopulationBuilder(null, null, 64);
+		SyntheticPopulation.ingest(persons, builder);
+		population = builder.build();
+	}
+
+	@Test
+	void countsThePersonsInsideTheCellAlignedBox() {
+		PersonGrid.Region region = population.grid().query(-300, -150, 250, 99);
+
+		assertThat(region.minX()).isEqualTo(-320);
+		assertThat(region.minY()).isEqualTo(-192);
+		assertThat(region.maxX()).isEqualTo(255);
+		assertThat(region.maxY()).isEqualTo(127);
+		assertThat(region.cellsTouched()).isEqualTo(9 * 5);
+
+		List<PersonDTO> inside = persons.stream()
+				.filter(person -> person.coordinates().x() >= region.minX() && person.coordinates().x() <= region.maxX()
+						&& person.coordinates().y() >= region.minY() && person.coordinates().y() <= region.maxY())
+				.toList();
+		assertThat(region.cube().cells()).isEqualTo(PersonCountCube.of(inside).cells());
+	}
+
+	@Test
+	void aBoxLargerThanTheOccupiedAreaCoversEveryone() {
+		PersonGrid.Region region = population.grid().query(Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+		assertThat(region.cellsTouched()).isEqualTo(population.grid().size());
+		assertThat(region.cube().total()).isEqualTo(persons.size());
+		assertThat(region.cube().countByHairColor(Color.GREEN)).isEqualTo(population.cube().countByHairColor(Color.GREEN));
+	}
+
+	@Test
+	void ranksLocationsByNationality() {
+		Map<String, Long> expected = persons.stream()
+				.filter(person -> person.nationality() == Country.INDIA)
+				.collect(Collectors.groupingBy(person -> person.location().name(), Collectors.counting()));
+		List<String> expectedTop = expected.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+				.limit(5)
+				.map(Map.Entry::getKey)
+				.toList();
+
+		List<PersonLocationCounts.LocationCount> top = population.locations().top(Country.INDIA, 5);
+
+		assertThat(top).extracting(PersonLocationCounts.LocationCount::name).isEqualTo(expectedTop);
+		assertThat(top).isSortedAccordingTo(Comparator.comparingLong(PersonLocationCounts.LocationCount::count).reversed());
+		assertThat(top).allSatisfy(location ->
+				assertThat(location.count()).isEqualTo(expected.get(location.name())));
+	}
+
+	@Test
+	void deltaSyncClonesOnlyTheLocationsItCounts() {
+		PersonDTO template = persons.get(0);
+		String counted = template.location().name();
+		long indiansBefore = population.locations().counts().get(counted)[Country.INDIA.ordinal()];
+
+		PopulationBuilder delta = population.toBuilder();
+		SyntheticPopulation.ingest(List.of(new PersonDTO(persons.size() + 1, "Newcomer", template.coordinates(),
+				template.creationDate(), 180L, 80f, Color.BLUE, Color.GREEN, Country.INDIA, template.location())), delta);
+		Population extended = delta.build();
+
+		String untouched = population.locations().counts().keySet().stream()
+				.filter(name -> !name.equals(counted))
+				.findFirst().orElseThrow();
+		assertThat(extended.locations().counts().get(untouched)).isSameAs(population.locations().counts().get(untouched));
+		assertThat(extended.locations().counts().get(counted)[Country.INDIA.ordinal()]).isEqualTo(indiansBefore + 1);
+		assertThat(population.locations().counts().get(counted)[Country.INDIA.ordinal()]).isEqualTo(indiansBefore);
+	}
+}
@@ -0,0 +1,93 @@
+package ru.itmo.demography_service.aggregation;
+
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PersonReservoirTests {
+
+	@Test
+	void keepsTheWholePopulationWhileItFits() {
+		List<PersonDTO> persons = persons(500);
+		PersonReservoir first = new PersonReservoir(1_000);
+		PersonReservoir second = new PersonReservoir(1_000);
+		persons.subList(0, 200).forEach(person -> offer(first, person));
+		persons.subList(200, 500).forEach(person -> offer(second, person));
+
+		first.merge(second);
+
+		PersonCountCube exact = PersonCountCube.of(persons);
+		assertThat(first.size()).isEqualTo(500);
+		assertThat(first.populationSize()).isEqualTo(500);
+		for (Color color : Color.values()) {
+			assertThat((long) first.countByHairColor(color)).isEqualTo(exact.countByHairColor(color));
+		}
+	}
+
+	@Test
+	void mergedPagesStayARepresentativeSample() {
+		List<PersonDTO> persons = persons(40_000);
+		SplittableRandom sampling = new SplittableRandom(3);
+		PersonReservoir merged = new PersonReservoir(5_000, sampling);
+		for (int from = 0; from < persons.size(); from += 10_000) {
+			PersonReservoir page = new PersonReservoir(5_000, sampling.split());
+			persons.subList(from, from + 10_000).forEach(person -> offer(page, person));
+			merged.merge(page);
+		}
+
+		PersonCountCube exact = PersonCountCube.of(persons);
+		assertThat(merged.size()).isEqualTo(5_000);
+		assertThat(merged.populationSize()).isEqualTo(40_000);
+		for (Color color : Color.values()) {
+			double sampled = (double) merged.countByHairColor(color) / merged.size();
+			double actual = (double) exact.countByHairColor(color) / exact.total();
+			assertThat(sampled).isCloseTo(actual, within(0.03));
+		}
+	}
+
+	@Test
+	void pagesWithSplitStreamsSampleDifferentPersons() {
+		SplittableRandom sampling = new SplittableRandom(5);
+		List<PersonReservoir> splitStreams = List.of(
+				new PersonReservoir(100, sampling.split()), new PersonReservoir(100, sampling.split()));
+		List<PersonReservoir> sameSeed = List.of(new PersonReservoir(100), new PersonReservoir(100));
+		// Every page sees the same persons, so only the streams can make their samples differ.
+		for (int i = 0; i < 20_000; i++) {
+			Country nationality = Country.values()[i % Country.values().length];
+			Color eyeColor = Color.values()[i / Country.values().length % Color.values().length];
+			for (PersonReservoir page : List.of(splitStreams.get(0), splitStreams.get(1), sameSeed.get(0), sameSeed.get(1))) {
+				page.offer(nationality, null, eyeColor);
+			}
+		}
+
+		assertThat(composition(sameSeed.get(0))).isEqualTo(composition(sameSeed.get(1)));
+		assertThat(composition(splitStreams.get(0))).isNotEqualTo(composition(splitStreams.get(1)));
+	}
+
+	private static List<Integer> composition(PersonReservoir reservoir) {
+		List<Integer> counts = new ArrayList<>();
+		for (Country nationality : Country.values()) {
+			for (Color eyeColor : Color.values()) {
+				counts.add(reservoir.countByNationalityAndEyeColor(nationality, eyeColor));
+			}
+		}
+		return counts;
+	}
+
+	private static List<PersonDTO> persons(int size) {
+		return new SyntheticPopulation(11).persons(size);
+	}
+
+	private static void offer(PersonReservoir reservoir, PersonDTO person) {
+		reservoir.offer(person.nationality(), person.hairColor(), person.eyeColor());
+	}
+}
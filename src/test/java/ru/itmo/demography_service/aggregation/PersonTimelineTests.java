@@ -0,0 +1,76 @@
+package ru.itmo.demography_service.aggregation;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.TimeBucket;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonTimelineTests {
+
+	private static final int SIZE = 30_000;
+
+	private static List<PersonDTO> persons;
+
+	@BeforeAll
+	static void generatePersons() {
+		persons = new SyntheticPopulation(3).persons(SIZE);
+	}
+
+	@Test
+	void rollsUpEveryBucketSizeLikeACountOverThePersons() {
+		PopulationBuilder builder = new PopulationBuilder();
+		SyntheticPopulation.ingest(persons, builder);
+		PersonTimeline timeline = builder.build().timeline();
+
+		LocalDate from = LocalDate.of(2024, 1, 3);
+		LocalDate to = LocalDate.of(2024, 1, 17);
+		for (TimeBucket bucket : TimeBucket.values()) {
+			NavigableMap<LocalDate, PersonCountCube> rollup = timeline.rollup(from, to, bucket);
+
+			assertThat(rollup).hasSize((int) bucket.count(from, to));
+			for (Map.Entry<LocalDate, PersonCountCube> entry : rollup.entrySet()) {
+				LocalDate start = entry.getKey().isBefore(from) ? from : entry.getKey();
+				LocalDate end = bucket.next(entry.getKey()).minusDays(1);
+				List<PersonDTO> expected = createdBetween(start, end.isAfter(to) ? to : end);
+
+				assertThat(entry.getValue().total()).isEqualTo(expected.size());
+				assertThat(entry.getValue().countByHairColor(Color.BLUE))
+						.isEqualTo(PersonCountCube.of(expected).countByHairColor(Color.BLUE));
+			}
+		}
+	}
+
+	@Test
+	void deltaSyncLeavesThePublishedTimelineUntouched() {
+		PopulationBuilder initial = new PopulationBuilder();
+		SyntheticPopulation.ingest(persons.subList(0, SIZE / 2), initial);
+		Population first = initial.build();
+		long firstTotal = first.timeline().total();
+
+		PopulationBuilder delta = first.toBuilder();
+		SyntheticPopulation.ingest(persons.subList(SIZE / 2, SIZE), delta);
+		Population second = delta.build();
+
+		assertThat(first.timeline().total()).isEqualTo(firstTotal).isEqualTo(SIZE / 2);
+		assertThat(second.timeline().total()).isEqualTo(SIZE);
+		assertThat(second.timeline().firstDay()).isEqualTo(LocalDate.of(2024, 1, 1));
+		assertThat(second.timeline().lastDay())
+				.isEqualTo(persons.get(SIZE - 1).creationDate().toLocalDate());
+	}
+
+	private static List<PersonDTO> createdBetween(LocalDate from, LocalDate to) {
+		return persons.stream()
+				.filter(person -> !person.creationDate().toLocalDate().isBefore(from)
+						&& !person.creationDate().toLocalDate().isAfter(to))
+				.toList();
+	}
+}
@@ -0,0 +1,102 @@
+package ru.itmo.demography_service.aggregation;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.PersonAttribute;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PopulationFileTests {
+
+	private static List<PersonDTO> persons;
+	private static Population population;
+
+	@TempDir
+	Path directory;
+
+	@BeforeAll
+	static void loadPopulation() {
+		persons = new SyntheticPopulation(7).persons(2_000);
+		PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(true));
+		SyntheticPopulation.ingest(persons, builder);
+		population = builder.build();
+	}
+
+	@Test
+	void restoresTheSavedPopulation() throws Exception {
+		Path file = directory.resolve("population.bin");
+		Instant savedAt = Instant.ofEpochMilli(1_700_000_000_000L);
+
+		PopulationFile.write(file, population, savedAt, "\"v42\"");
+		PopulationFile.Contents contents = PopulationFile.read(file);
+		Population restored = contents.population();
+
+		assertThat(contents.savedAt()).isEqualTo(savedAt);
+		assertThat(contents.upstreamEntityTag()).isEqualTo("\"v42\"");
+		assertThat(restored.size()).isEqualTo(population.size());
+		assertThat(restored.maxId()).isEqualTo(population.maxId());
+		assertThat(restored.maxCreationEpochSecond()).isEqualTo(population.maxCreationEpochSecond());
+		assertThat(restored.cube().cells()).isEqualTo(population.cube().cells());
+		assertThat(restored.columns().column(PersonAttribute.HAIR_COLOR)).hasSize(population.columns().size());
+		assertThat(population.columns().column(PersonAttribute.HAIR_COLOR))
+				.startsWith(restored.columns().column(PersonAttribute.HAIR_COLOR));
+		assertThat(restored.index().sizeInBytes()).isEqualTo(population.index().sizeInBytes());
+		assertThat(restored.timeline().days().keySet()).isEqualTo(population.timeline().days().keySet());
+		population.timeline().days().forEach((day, cube) ->
+				assertThat(restored.timeline().days().get(day).cells()).isEqualTo(cube.cells()));
+		assertThat(restored.grid().cellSize()).isEqualTo(population.grid().cellSize());
+		assertThat(restored.grid().cells().keySet()).isEqualTo(population.grid().cells().keySet());
+		population.grid().cells().forEach((cell, cube) ->
+				assertThat(restored.grid().cells().get(cell).cells()).isEqualTo(cube.cells()));
+		assertThat(restored.locations().counts()).containsOnlyKeys(population.locations().counts().keySet());
+		population.locations().counts().forEach((name, counts) ->
+				assertThat(restored.locations().counts().get(name)).isEqualTo(counts));
+
+		for (int i = 0; i < persons.size(); i++) {
+			PersonDTO person = persons.get(i);
+			assertThat(restored.columns().nationality(i)).isEqualTo(person.nationality());
+			assertThat(restored.columns().height(i)).isEqualTo(person.height());
+			assertThat(restored.columns().weight(i)).isEqualTo(person.weight());
+		}
+	}
+
+	@Test
+	void rejectsACorruptedPayload() throws Exception {
+		Path file = directory.resolve("population.bin");
+		PopulationFile.write(file, population, Instant.now(), null);
+
+		try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+			long offset = raw.length() - 1;
+			raw.seek(offset);
+			int last = raw.read();
+			raw.seek(offset);
+			raw.write(last ^ 0xff);
+		}
+
+		assertThatThrownBy(() -> PopulationFile.read(file))
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("checksum");
+	}
+
+	@Test
+	void rejectsATruncatedFile() throws Exception {
+		Path file = directory.resolve("population.bin");
+		PopulationFile.write(file, population, Instant.now(), null);
+
+		try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+			raw.setLength(raw.length() / 2);
+		}
+
+		assertThatThrownBy(() -> PopulationFile.read(file)).isInstanceOf(IOException.class);
+	}
+}
@@ -0,0 +1,106 @@
+package ru.itmo.demography_service.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakingClientTests {
+
+	private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "http://person-service/persons",
+			Map.of(), null, StandardCharsets.UTF_8, null);
+
+	private final CircuitBreaker circuitBreaker = CircuitBreaker.of("person-service", CircuitBreakerConfig.custom()
+			.failureRateThreshold(50)
+			.slidingWindowSize(4)
+			.minimumNumberOfCalls(4)
+			.waitDurationInOpenState(Duration.ofHours(1))
+			.permittedNumberOfCallsInHalfOpenState(1)
+			.build());
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	@Test
+	void serverErrorsOpenTheBreakerAndOpenCallsNeverReachPersonService() throws Exception {
+		Client client = new CircuitBreakingClient(answering(503), circuitBreaker);
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(client.execute(REQUEST, null).status()).isEqualTo(503);
+		}
+
+		assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(() -> client.execute(REQUEST, null)).isInstanceOf(CallNotPermittedException.class);
+		assertThat(calls).hasValue(4);
+	}
+
+	@Test
+	void transportErrorsCountAsFailures() {
+		Client client = new CircuitBreakingClient((request, options) -> {
+			calls.incrementAndGet();
+			throw new IOException("Connection refused");
+		}, circuitBreaker);
+
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> client.execute(REQUEST, null)).isInstanceOf(IOException.class);
+		}
+
+		assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	void clientErrorsDoNotOpenTheBreaker() throws Exception {
+		Client client = new CircuitBreakingClient(answering(404), circuitBreaker);
+
+		for (int i = 0; i < 8; i++) {
+			client.execute(REQUEST, null);
+		}
+
+		assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void aSuccessfulProbeClosesAHalfOpenBreaker() throws Exception {
+		circuitBreaker.transitionToOpenState();
+		circuitBreaker.transitionToHalfOpenState();
+
+		new CircuitBreakingClient(answering(200), circuitBreaker).execute(REQUEST, null);
+
+		assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void aProbeFailingWithAnErrorReopensTheBreakerInsteadOfKeepingItsPermit() {
+		circuitBreaker.transitionToOpenState();
+		circuitBreaker.transitionToHalfOpenState();
+		Client client = new CircuitBreakingClient((request, options) -> {
+			throw new OutOfMemoryError("Java heap space");
+		}, circuitBreaker);
+
+		assertThatThrownBy(() -> client.execute(REQUEST, null)).isInstanceOf(OutOfMemoryError.class);
+
+		assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	private Client answering(int status) {
+		return (request, options) -> {
+			calls.incrementAndGet();
+			return Response.builder()
+					.status(status)
+					.request(request)
+					.headers(Map.of())
+					.build();
+		};
+	}
+}
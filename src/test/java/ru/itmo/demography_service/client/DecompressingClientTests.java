@@ -0,0 +1,158 @@
+package ru.itmo.demography_service.client;
+
+import com.github.luben.zstd.Zstd;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DecompressingClientTests {
+
+	private static final byte[] BODY = new SyntheticPopulation(13).json(500);
+	private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "http://person-service/persons",
+			Map.of(), null, StandardCharsets.UTF_8, null);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final DemographyMetrics demographyMetrics = new DemographyMetrics(meterRegistry);
+	private final AtomicReference<Request> sent = new AtomicReference<>();
+
+	@Test
+	void offersTheConfiguredEncodingsUnlessTheRequestChoseItsOwn() throws IOException {
+		Client client = new DecompressingClient(answering(BODY, Map.of()), List.of("zstd", "gzip"), demographyMetrics);
+
+		client.execute(REQUEST, null).close();
+		assertThat(sent.get().headers().get("Accept-Encoding")).containsExactly("zstd, gzip");
+
+		client.execute(Request.create(Request.HttpMethod.GET, "http://person-service/persons",
+				Map.of("accept-encoding", List.of("identity")), null, StandardCharsets.UTF_8, null), null).close();
+		assertThat(sent.get().headers()).hasSize(1);
+		assertThat(sent.get().headers().get("accept-encoding")).containsExactly("identity");
+	}
+
+	@Test
+	void gzipBodiesAreInflatedWhileRead() throws IOException {
+		byte[] wire = gzip(BODY);
+		Client client = new DecompressingClient(answering(wire, Map.of(
+				"Content-Encoding", List.of("gzip"),
+				"Content-Length", List.of(String.valueOf(wire.length)),
+				"Content-Type", List.of("application/json"))), List.of("gzip"), demographyMetrics);
+
+		try (Response response = client.execute(REQUEST, null)) {
+			assertThat(read(response)).isEqualTo(BODY);
+			assertThat(response.headers()).containsOnlyKeys("content-type");
+		}
+
+		DistributionSummary wireBytes = meterRegistry.get("demography.person-service.response.wire.bytes")
+				.tag("encoding", "gzip").summary();
+		assertThat(wireBytes.count()).isEqualTo(1);
+		assertThat(wireBytes.totalAmount()).isEqualTo(wire.length);
+		assertThat(meterRegistry.get("demography.person-service.response.compression.ratio")
+				.tag("encoding", "gzip").summary().totalAmount())
+				.isEqualTo((double) BODY.length / wire.length);
+	}
+
+	@Test
+	void zstdBodiesAreInflatedWhileRead() throws IOException {
+		Client client = new DecompressingClient(answering(Zstd.compress(BODY), Map.of(
+				"Content-Encoding", List.of("zstd"))), List.of("zstd"), demographyMetrics);
+
+		try (Response response = client.execute(REQUEST, null)) {
+			assertThat(read(response)).isEqualTo(BODY);
+		}
+	}
+
+	@Test
+	void bodiesTheTransportAlreadyInflatedPassThrough() throws IOException {
+		Client client = new DecompressingClient(answering(BODY, Map.of(
+				"Content-Encoding", List.of("gzip"))), List.of("gzip"), demographyMetrics);
+
+		try (Response response = client.execute(REQUEST, null)) {
+			assertThat(read(response)).isEqualTo(BODY);
+		}
+		assertThat(meterRegistry.find("demography.person-service.response.wire.bytes").summary()).isNull();
+	}
+
+	@Test
+	void bodiesTheTransportAlreadyInflatedAreMeteredByTheirContentLength() throws IOException {
+		Client client = new DecompressingClient(answering(BODY, Map.of(
+				"Content-Encoding", List.of("gzip"),
+				"Content-Length", List.of("1000"))), List.of("gzip"), demographyMetrics);
+
+		try (Response response = client.execute(REQUEST, null)) {
+			assertThat(read(response)).isEqualTo(BODY);
+			assertThat(response.headers()).isEmpty();
+		}
+
+		assertThat(meterRegistry.get("demography.person-service.response.wire.bytes")
+				.tag("encoding", "gzip").summary().totalAmount()).isEqualTo(1000);
+		assertThat(meterRegistry.get("demography.person-service.response.compression.ratio")
+				.tag("encoding", "gzip").summary().totalAmount()).isEqualTo(BODY.length / 1000.0);
+	}
+
+	@Test
+	void identityBodiesAreLeftAlone() throws IOException {
+		Response original = Response.builder()
+				.status(200)
+				.request(REQUEST)
+				.headers(Map.of("Content-Encoding", List.of("identity")))
+				.body(BODY)
+				.build();
+		Client client = new DecompressingClient((request, options) -> original, List.of("gzip"), demographyMetrics);
+
+		assertThat(client.execute(REQUEST, null)).isSameAs(original);
+	}
+
+	@Test
+	void unsupportedEncodingsAreRejectedAtStartup() {
+		assertThatThrownBy(() -> new DecompressingClient(answering(BODY, Map.of()), List.of("gzip", "deflate"),
+				demographyMetrics))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Unsupported Person Service content encoding: deflate");
+	}
+
+	private Client answering(byte[] body, Map<String, Collection<String>> headers) {
+		return (request, options) -> {
+			sent.set(request);
+			return Response.builder()
+					.status(200)
+					.request(request)
+					.headers(headers)
+					.body(body)
+					.build();
+		};
+	}
+
+	private static byte[] read(Response response) throws IOException {
+		try (InputStream body = response.body().asInputStream()) {
+			return body.readAllBytes();
+		}
+	}
+
+	private static byte[] gzip(byte[] body) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
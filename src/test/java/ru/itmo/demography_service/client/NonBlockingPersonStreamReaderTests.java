@@ -0,0 +1,106 @@
+package ru.itmo.demography_service.client;
+
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.exception.PersonServiceException;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Feeds bodies in chunks of every size down to a single byte, so tokens, strings and numbers
+ * are split across chunk boundaries the way network reads split them.
+ */
+class NonBlockingPersonStreamReaderTests {
+
+	private static final String PERSONS = """
+			[{"id": 7, "name": "Ann", "tags": ["a", {"nested": "b"}],
+			  "coordinates": {"x": -12, "y": 40}, "creationDate": "2024-03-05T10:15:30.123",
+			  "height": 172, "weight": 61.5, "hairColor": "BLUE", "eyeColor": "GREEN", "nationality": "THAILAND",
+			  "location": {"x": 1, "y": 2.5, "z": 3.5, "name": "Bangkok"}},
+			 {"id": 8, "hairColor": null}]
+			""";
+
+	private final List<Person> persons = new ArrayList<>();
+
+	@Test
+	void chunkBoundariesDoNotChangeWhatIsRead() {
+		for (int chunkSize : new int[]{1, 2, 3, 7, 64, PERSONS.length()}) {
+			persons.clear();
+
+			assertThat(read(PERSONS, chunkSize)).as("persons read in chunks of %d", chunkSize).isEqualTo(2);
+			assertThat(persons).as("persons read in chunks of %d", chunkSize).containsExactly(
+					new Person(7, LocalDateTime.of(2024, 3, 5, 10, 15, 30).toEpochSecond(ZoneOffset.UTC), -12, 40, 172,
+							61.5f, Color.BLUE, Color.GREEN, Country.THAILAND, "Bangkok"),
+					new Person(8, PersonFields.UNKNOWN, PersonFields.UNKNOWN, PersonFields.UNKNOWN,
+							PersonFields.UNKNOWN, Float.NaN, null, null, null, null));
+		}
+	}
+
+	@Test
+	void aBodyThatEndsInsideAPersonFailsAfterTheCompletePersons() {
+		assertThatThrownBy(() -> read("[{\"id\": 1, \"hairColor\": \"BLUE\"}, {\"id\": 2, \"hairCol", 5))
+				.isInstanceOf(UncheckedIOException.class)
+				.hasCauseInstanceOf(JsonEOFException.class);
+
+		assertThat(persons).extracting(Person::id, Person::hairColor).containsExactly(tuple(1L, Color.BLUE));
+	}
+
+	@Test
+	void aBodyThatEndsInsideTheArrayIsRejected() {
+		assertThatThrownBy(() -> read("[{\"id\": 1}, {\"id\": 2}", 5))
+				.isInstanceOf(UncheckedIOException.class)
+				.hasCauseInstanceOf(JsonEOFException.class);
+
+		assertThat(persons).hasSize(2);
+	}
+
+	@Test
+	void aBodyThatIsNotAnArrayIsRejected() {
+		assertThatThrownBy(() -> read("{\"error\": \"Internal Server Error\"}", 5))
+				.isInstanceOf(PersonServiceException.class)
+				.hasMessage("Person service returned invalid data");
+	}
+
+	@Test
+	void anEmptyBodyIsRejected() {
+		assertThatThrownBy(() -> read("", 5))
+				.isInstanceOf(PersonServiceException.class)
+				.hasMessage("Person service returned invalid data");
+	}
+
+	private long read(String json, int chunkSize) {
+		NonBlockingPersonStreamReader reader = new NonBlockingPersonStreamReader(person -> persons.add(Person.of(person)));
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		for (int from = 0; from < body.length; from += chunkSize) {
+			byte[] chunk = Arrays.copyOfRange(body, from, Math.min(body.length, from + chunkSize));
+			reader.feed(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+		}
+		return reader.finish();
+	}
+
+	/**
+	 * Snapshot of the reused {@link PersonFields}, which a sink must not retain.
+	 */
+	private record Person(long id, long creationEpochSecond, long coordinateX, long coordinateY, long height,
+						  float weight, Color hairColor, Color eyeColor, Country nationality, String locationName) {
+
+		static Person of(PersonFields fields) {
+			return new Person(fields.id(), fields.creationEpochSecond(), fields.coordinateX(), fields.coordinateY(),
+					fields.height(), fields.weight(), fields.hairColor(), fields.eyeColor(), fields.nationality(),
+					fields.locationName());
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package ru.itmo.demography_service.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.exception.PersonServiceException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersonStreamReaderTests {
+
+	private final List<Person> persons = new ArrayList<>();
+
+	@Test
+	void readsTheAttributesTheAggregationsNeedAndSkipsTheRest() throws IOException {
+		long count = read("""
+				[{"id": 7, "name": "Ann", "tags": ["a", {"nested": "b"}],
+				  "coordinates": {"x": -12, "y": 40},
+				  "creationDate": "2024-03-05T10:15:30.123",
+				  "height": 172, "weight": 61.5,
+				  "hairColor": "BLUE", "eyeColor": "GREEN", "nationality": "THAILAND",
+				  "location": {"x": 1, "y": 2.5, "z": 3.5, "name": "Bangkok"},
+				  "extra": {"hairColor": "BROWN", "deeper": {"name": "ignored"}}}]
+				""");
+
+		assertThat(count).isEqualTo(1);
+		assertThat(persons).containsExactly(new Person(7,
+				LocalDateTime.of(2024, 3, 5, 10, 15, 30).toEpochSecond(ZoneOffset.UTC), -12, 40, 172, 61.5f,
+				Color.BLUE, Color.GREEN, Country.THAILAND, "Bangkok"));
+	}
+
+	@Test
+	void missingAndNullAttributesAreReportedAsUnknown() throws IOException {
+		read("""
+				[{"id": 1, "hairColor": null, "eyeColor": "BROWN", "creationDate": "2024-03-05",
+				  "weight": 70, "location": null},
+				 {"id": 2}]
+				""");
+
+		assertThat(persons).containsExactly(
+				new Person(1, LocalDateTime.of(2024, 3, 5, 0, 0).toEpochSecond(ZoneOffset.UTC),
+						PersonFields.UNKNOWN, PersonFields.UNKNOWN, PersonFields.UNKNOWN, 70f,
+						null, Color.BROWN, null, null),
+				new Person(2, PersonFields.UNKNOWN, PersonFields.UNKNOWN, PersonFields.UNKNOWN,
+						PersonFields.UNKNOWN, Float.NaN, null, null, null, null));
+	}
+
+	@Test
+	void anEmptyArrayIsAnEmptyPopulation() throws IOException {
+		assertThat(read("[]")).isZero();
+		assertThat(persons).isEmpty();
+	}
+
+	@Test
+	void aBodyThatIsNotAnArrayIsRejected() {
+		assertThatThrownBy(() -> read("{\"error\": \"Internal Server Error\"}"))
+				.isInstanceOf(PersonServiceException.class)
+				.hasMessage("Person service returned invalid data");
+	}
+
+	@Test
+	void anEmptyBodyIsRejected() {
+		assertThatThrownBy(() -> read(""))
+				.isInstanceOf(PersonServiceException.class)
+				.hasMessage("Person service returned invalid data");
+	}
+
+	@Test
+	void aTruncatedBodyFailsAfterTheCompletePersons() {
+		assertThatThrownBy(() -> read("[{\"id\": 1, \"hairColor\": \"BLUE\"}, {\"id\": 2, \"hairCol"))
+				.isInstanceOf(JsonParseException.class);
+
+		assertThat(persons).extracting(Person::id).containsExactly(1L);
+	}
+
+	@Test
+	void aStreamThatStopsInsideTheArrayIsRejectedOnFinish() throws IOException {
+		PersonStreamReader reader = new PersonStreamReader(person -> persons.add(Person.of(person)));
+		try (JsonParser parser = new JsonFactory().createParser("[{\"id\": 1}, {\"id\": 2}]")) {
+			JsonToken token;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				reader.onToken(parser, token);
+			}
+		}
+
+		assertThatThrownBy(reader::finish)
+				.isInstanceOf(PersonServiceException.class)
+				.hasMessage("Person service response ended unexpectedly");
+		assertThat(persons).hasSize(2);
+	}
+
+	@Test
+	void syntaxErrorsAreReportedAsParseErrors() {
+		assertThatThrownBy(() -> read("[{\"id\": 1,, \"hairColor\": \"BLUE\"}]"))
+				.isInstanceOf(JsonParseException.class);
+	}
+
+	@Test
+	void unknownEnumValuesAreRejected() {
+		assertThatThrownBy(() -> read("[{\"id\": 1, \"hairColor\": \"PURPLE\"}]"))
+				.isInstanceOf(JsonParseException.class)
+				.hasMessageContaining("Unknown Color value 'PURPLE'");
+	}
+
+	@Test
+	void malformedCreationDatesAreRejected() {
+		assertThatThrownBy(() -> read("[{\"id\": 1, \"creationDate\": \"05.03.2024\"}]"))
+				.isInstanceOf(JsonParseException.class)
+				.hasMessageContaining("Invalid creationDate '05.03.2024'");
+		assertThatThrownBy(() -> read("[{\"id\": 1, \"creationDate\": \"2024-13-05\"}]"))
+				.isInstanceOf(JsonParseException.class)
+				.hasMessageContaining("Invalid creationDate '2024-13-05'");
+	}
+
+	private long read(String json) throws IOException {
+		return PersonStreamReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+				person -> persons.add(Person.of(person)));
+	}
+
+	/**
+	 * Snapshot of the reused {@link PersonFields}, which a sink must not retain.
+	 */
+	private record Person(long id, long creationEpochSecond, long coordinateX, long coordinateY, long height,
+						  float weight, Color hairColor, Color eyeColor, Country nationality, String locationName) {
+
+		static Person of(PersonFields fields) {
+			return new Person(fields.id(), fields.creationEpochSecond(), fields.coordinateX(), fields.coordinateY(),
+					fields.height(), fields.weight(), fields.hairColor(), fields.eyeColor(), fields.nationality(),
+					fields.locationName());
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package ru.itmo.demography_service.client;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.itmo.demography_service.aggregation.PersonColumnsBuilder;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.support.PersonServiceStandIn;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonWireFormatTests {
+
+	private static PersonServiceStandIn personService;
+
+	@BeforeAll
+	static void startPersonService() throws Exception {
+		personService = new PersonServiceStandIn(2_000, 42);
+	}
+
+	@AfterAll
+	static void stopPersonService() {
+		personService.close();
+	}
+
+	@ParameterizedTest
+	@EnumSource(PersonWireFormat.class)
+	void readsTheSamePopulationInEveryFormat(PersonWireFormat format) throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) URI.create(personService.url() + "/persons")
+				.toURL().openConnection();
+		connection.setRequestProperty("Accept", format.mediaType());
+
+		PersonWireFormat received = PersonWireFormat.of(connection.getContentType());
+		PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(true));
+		long read;
+		try (InputStream body = connection.getInputStream()) {
+			read = PersonStreamReader.read(body, received, builder);
+		}
+		Population population = builder.build();
+
+		assertThat(received).isEqualTo(format);
+		assertThat(read).isEqualTo(personService.persons().size());
+		assertThat(population.maxId()).isEqualTo(personService.persons().size());
+
+		PersonCountCube expected = PersonCountCube.of(personService.persons());
+		for (PersonDTO person : personService.persons()) {
+			assertThat(population.cube().count(person.nationality(), person.hairColor(), person.eyeColor()))
+					.isEqualTo(expected.count(person.nationality(), person.hairColor(), person.eyeColor()));
+		}
+
+		PersonDTO last = personService.persons().get(personService.persons().size() - 1);
+		int index = personService.persons().size() - 1;
+		assertThat(population.columns().height(index)).isEqualTo(last.height());
+		assertThat(population.columns().weight(index)).isEqualTo(last.weight());
+	}
+}
@@ -0,0 +1,166 @@
+package ru.itmo.demography_service.config;
+
+import feign.Client;
+import feign.Contract;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.RequestLine;
+import feign.RequestTemplate;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.ConnectionPool;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.itmo.demography_service.client.PersonWireFormat;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+import ru.itmo.demography_service.support.PersonServiceStandIn;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Builds the Person Service transports the way the context does and sends requests through
+ * them to a {@link PersonServiceStandIn} over plain HTTP.
+ */
+class FeignConfigTests {
+
+	private static final Request.Options OPTIONS = new Request.Options(5000, 10000, true);
+
+	private final FeignConfig config = new FeignConfig();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final DemographyMetrics demographyMetrics = new DemographyMetrics(meterRegistry);
+	private final CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("person-service");
+
+	private PersonServiceStandIn personService;
+
+	@BeforeEach
+	void configure() throws IOException {
+		ReflectionTestUtils.setField(config, "poolMaxTotal", 8);
+		ReflectionTestUtils.setField(config, "poolMaxPerRoute", 4);
+		ReflectionTestUtils.setField(config, "poolKeepAliveMs", 60_000L);
+		ReflectionTestUtils.setField(config, "compressionEncodings", List.of("gzip"));
+		ReflectionTestUtils.setField(config, "tlsSessionCacheSize", 16);
+		ReflectionTestUtils.setField(config, "tlsSessionTimeoutSeconds", 60);
+		personService = new PersonServiceStandIn(10, 7);
+	}
+
+	@AfterEach
+	void stopPersonService() {
+		personService.close();
+	}
+
+	@Test
+	void pooledTransportKeepsTheConnectionForTheNextRequest() throws IOException {
+		try (PoolingHttpClientConnectionManager connectionManager =
+					 config.personServiceConnectionManager(sslContext(), meterRegistry)) {
+			Client client = config.pooledFeignClient(connectionManager, demographyMetrics, circuitBreaker);
+
+			assertThat(count(client)).isEqualTo("10");
+			assertThat(count(client)).isEqualTo("10");
+
+			assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+			assertThat(connectionManager.getTotalStats().getAvailable()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void http2TransportKeepsTheConnectionForTheNextRequest() throws IOException {
+		ConnectionPool connectionPool = config.personServiceConnectionPool(meterRegistry);
+		Client client = config.http2FeignClient(sslContext(), config.personServiceTrustManager(), connectionPool,
+				demographyMetrics, circuitBreaker);
+
+		assertThat(count(client)).isEqualTo("10");
+		assertThat(count(client)).isEqualTo("10");
+
+		assertThat(connectionPool.connectionCount()).isEqualTo(1);
+		connectionPool.evictAll();
+	}
+
+	@Test
+	void defaultTransportReachesPersonService() throws IOException {
+		Client client = config.feignClient(sslContext(), demographyMetrics, circuitBreaker);
+
+		assertThat(count(client)).isEqualTo("10");
+	}
+
+	@Test
+	void defaultTransportRecordsTheWireSizeOfTheBodiesItInflates() throws IOException {
+		Client client = config.feignClient(sslContext(), demographyMetrics, circuitBreaker);
+
+		byte[] body = get(client, "/persons");
+
+		assertThat(body).isEqualTo(SyntheticPopulation.encode(personService.persons(), PersonWireFormat.JSON));
+		DistributionSummary wireBytes = meterRegistry.get("demography.person-service.response.wire.bytes")
+				.tag("encoding", "gzip").summary();
+		assertThat(wireBytes.count()).isEqualTo(1);
+		assertThat(wireBytes.totalAmount()).isPositive().isLessThan(body.length);
+		assertThat(meterRegistry.get("demography.person-service.response.compression.ratio")
+				.tag("encoding", "gzip").summary().totalAmount())
+				.isEqualTo(body.length / wireBytes.totalAmount());
+	}
+
+	@Test
+	void streamedMethodsOfferTheWireFormatsInPreferenceOrder() {
+		ReflectionTestUtils.setField(config, "wireFormats",
+				List.of(PersonWireFormat.SMILE, PersonWireFormat.CBOR, PersonWireFormat.JSON));
+		RequestInterceptor interceptor = config.personStreamAcceptInterceptor();
+
+		RequestTemplate streamed = template("streamAllPersons");
+		streamed.header("Accept", "application/json");
+		interceptor.apply(streamed);
+		RequestTemplate databound = template("getPersonsCount");
+		databound.header("Accept", "application/json");
+		interceptor.apply(databound);
+
+		assertThat(streamed.headers().get("Accept"))
+				.containsExactly("application/x-jackson-smile, application/cbor;q=0.9, application/json;q=0.8");
+		assertThat(databound.headers().get("Accept")).containsExactly("application/json");
+	}
+
+	private SSLContext sslContext() {
+		return config.personServiceSslContext(config.personServiceTrustManager());
+	}
+
+	private String count(Client client) throws IOException {
+		return new String(get(client, "/persons/count"), StandardCharsets.UTF_8);
+	}
+
+	private byte[] get(Client client, String path) throws IOException {
+		Request request = Request.create(Request.HttpMethod.GET, personService.url() + path,
+				Map.of(), null, StandardCharsets.UTF_8, null);
+		try (Response response = client.execute(request, OPTIONS); InputStream body = response.body().asInputStream()) {
+			assertThat(response.status()).isEqualTo(200);
+			return body.readAllBytes();
+		}
+	}
+
+	private static RequestTemplate template(String method) {
+		MethodMetadata metadata = new Contract.Default().parseAndValidateMetadata(PersonService.class).stream()
+				.filter(candidate -> candidate.method().getName().equals(method))
+				.findFirst()
+				.orElseThrow();
+		return new RequestTemplate().methodMetadata(metadata);
+	}
+
+	private interface PersonService {
+
+		@RequestLine("GET /persons")
+		Response streamAllPersons();
+
+		@RequestLine("GET /persons/count")
+		long getPersonsCount();
+	}
+}
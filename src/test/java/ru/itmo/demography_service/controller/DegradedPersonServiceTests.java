@@ -0,0 +1,169 @@
+package ru.itmo.demography_service.controller;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.exception.handler.GlobalExceptionHandler;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+import ru.itmo.demography_service.service.DemographyService;
+import ru.itmo.demography_service.service.PopulationSnapshot;
+import ru.itmo.demography_service.service.PopulationSnapshotService;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * What clients see while Person Service is failing: the last good population flagged as
+ * stale, {@code CIRCUIT_OPEN} when there is none, and 400 for bad requests either way.
+ */
+class DegradedPersonServiceTests {
+
+	private final PopulationSnapshotService populationSnapshotService = mock(PopulationSnapshotService.class);
+	private final DemographyMetrics demographyMetrics = new DemographyMetrics(new SimpleMeterRegistry());
+	private final DemographyService demographyService = new DemographyService(populationSnapshotService, demographyMetrics);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new DemographyController(demographyService))
+			.setControllerAdvice(new GlobalExceptionHandler(demographyMetrics))
+			.build();
+
+	@BeforeEach
+	void configureLimits() {
+		ReflectionTestUtils.setField(demographyService, "maxBatchQueries", 100);
+		when(populationSnapshotService.entityTag(any(), any())).thenReturn("W/\"test-7-json\"");
+	}
+
+	@Test
+	void openCircuitIsReportedAsCircuitOpen() throws Exception {
+		personServiceCircuitOpen();
+
+		mockMvc.perform(get("/demography/hair-color/distribution"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(jsonPath("$.error").value("CIRCUIT_OPEN"))
+				.andExpect(jsonPath("$.path").value("/demography/hair-color/distribution"));
+	}
+
+	@Test
+	void staleSnapshotIsServedWithItsVersionAndAge() throws Exception {
+		PopulationSnapshot snapshot = new PopulationSnapshot(7, Instant.now().minus(Duration.ofMinutes(10)),
+				Instant.now().minus(Duration.ofMinutes(10)), new PopulationBuilder().build());
+		when(populationSnapshotService.getSnapshot()).thenReturn(snapshot);
+		when(populationSnapshotService.isStale(snapshot)).thenReturn(true);
+
+		String age = mockMvc.perform(get("/demography/hair-color/distribution"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(DemographyController.POPULATION_VERSION_HEADER, "7"))
+				.andExpect(header().string(DemographyController.POPULATION_STALE_HEADER, "true"))
+				.andReturn().getResponse().getHeader(DemographyController.POPULATION_AGE_HEADER);
+
+		assertThat(Long.parseLong(age)).isGreaterThanOrEqualTo(600);
+	}
+
+	@Test
+	void freshSnapshotIsNotFlaggedStale() throws Exception {
+		PopulationSnapshot snapshot = new PopulationSnapshot(7, Instant.now(), Instant.now(),
+				new PopulationBuilder().build());
+		when(populationSnapshotService.getSnapshot()).thenReturn(snapshot);
+
+		mockMvc.perform(get("/demography/hair-color/distribution"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(DemographyController.POPULATION_AGE_HEADER, "0"))
+				.andExpect(header().string(DemographyController.POPULATION_STALE_HEADER, "false"));
+	}
+
+	@Test
+	void invalidBatchIsRejectedWithoutTakingASnapshot() throws Exception {
+		personServiceCircuitOpen();
+
+		mockMvc.perform(post("/demography/stats/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"queries\": [{\"type\": \"HAIR_COLOR_PERCENTAGE\"}]}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("INVALID_REQUEST_PARAMETER"));
+
+		verify(populationSnapshotService, never()).getSnapshot();
+	}
+
+	@Test
+	void invalidFilterIsRejectedWithoutTakingASnapshot() throws Exception {
+		personServiceCircuitOpen();
+
+		mockMvc.perform(post("/demography/query")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"filter\": {\"attribute\": \"HAIR_COLOR\", \"in\": [\"PURPLE\"]}}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("INVALID_REQUEST_PARAMETER"));
+
+		verify(populationSnapshotService, never()).getSnapshot();
+	}
+
+	@Test
+	void invertedTrendRangeIsRejectedWithoutTakingASnapshot() throws Exception {
+		personServiceCircuitOpen();
+
+		mockMvc.perform(get("/demography/trends/hair-color/BLUE?from=2024-12-31&to=2024-01-01"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("INVALID_REQUEST_PARAMETER"));
+
+		verify(populationSnapshotService, never()).getSnapshot();
+	}
+
+	@Test
+	void missingTrendBoundIsABadRequest() throws Exception {
+		personServiceCircuitOpen();
+
+		mockMvc.perform(get("/demography/trends/nationality/SPAIN/eye-color/GREEN?from=2024-01-01"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("MISSING_REQUEST_PARAMETER"));
+
+		verify(populationSnapshotService, never()).getSnapshot();
+	}
+
+	@Test
+	void invertedRegionIsRejectedWithoutTakingASnapshot() throws Exception {
+		personServiceCircuitOpen();
+
+		mockMvc.perform(get("/demography/regions/hair-color/distribution?minX=100&minY=0&maxX=-100&maxY=50"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("INVALID_REQUEST_PARAMETER"));
+
+		verify(populationSnapshotService, never()).getSnapshot();
+	}
+
+	@Test
+	void outOfRangeLocationLimitIsRejectedWithoutTakingASnapshot() throws Exception {
+		personServiceCircuitOpen();
+
+		mockMvc.perform(get("/demography/regions/nationality/SPAIN/top-locations?limit=0"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("INVALID_REQUEST_PARAMETER"));
+
+		verify(populationSnapshotService, never()).getSnapshot();
+	}
+
+	private void personServiceCircuitOpen() {
+		CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("person-service");
+		circuitBreaker.transitionToForcedOpenState();
+		when(populationSnapshotService.getSnapshot()).thenThrow(new PersonServiceException(
+				"Person service is unavailable, circuit breaker is open", "CIRCUIT_OPEN",
+				CallNotPermittedException.createCallNotPermittedException(circuitBreaker)));
+	}
+}
@@ -0,0 +1,175 @@
+package ru.itmo.demography_service.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.itmo.demography_service.aggregation.PersonColumnsBuilder;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.PersonWireFormat;
+import ru.itmo.demography_service.service.PopulationLoader;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the API on a real Tomcat, without TLS, over a synthetic population handed out by a
+ * mocked {@link PopulationLoader}, so headers the connector adds can be checked too.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"server.ssl.enabled=false",
+		"server.compression.min-response-size=128B",
+		"demography.snapshot.initial-delay-ms=3600000"
+})
+class DemographyControllerTests {
+
+	private static final String MATRIX = "/demography/nationality/eye-color/matrix";
+
+	private static final Population POPULATION = population();
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	private PopulationLoader populationLoader;
+
+	@BeforeEach
+	void servePopulation() {
+		when(populationLoader.load(any())).thenReturn(POPULATION);
+	}
+
+	@Test
+	void largeJsonResponsesAreGzipped() throws Exception {
+		HttpResponse<InputStream> response = client.send(get(MATRIX)
+						.header("Accept", "application/json")
+						.header("Accept-Encoding", "gzip")
+						.build(),
+				HttpResponse.BodyHandlers.ofInputStream());
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+		assertThat(response.headers().firstValue("ETag")).hasValueSatisfying(tag -> assertThat(tag).startsWith("W/\""));
+		assertThat(gunzip(response.body())).startsWith("{\"populationVersion\":").contains("\"counts\":[[");
+	}
+
+	@Test
+	void theWeakTagRevalidatesACompressedResponse() throws Exception {
+		HttpResponse<InputStream> first = client.send(get(MATRIX).header("Accept-Encoding", "gzip").build(),
+				HttpResponse.BodyHandlers.ofInputStream());
+		first.body().close();
+		String etag = first.headers().firstValue("ETag").orElseThrow();
+
+		HttpResponse<Void> second = client.send(get(MATRIX)
+						.header("Accept-Encoding", "gzip")
+						.header("If-None-Match", etag)
+						.build(),
+				HttpResponse.BodyHandlers.discarding());
+
+		assertThat(second.statusCode()).isEqualTo(304);
+		assertThat(second.headers().firstValue("ETag")).hasValue(etag);
+	}
+
+	@Test
+	void aNotModifiedResponseCarriesTheHeadersOfTheFullOne() throws Exception {
+		HttpResponse<byte[]> full = client.send(get(MATRIX).build(), HttpResponse.BodyHandlers.ofByteArray());
+		String etag = full.headers().firstValue("ETag").orElseThrow();
+
+		HttpResponse<Void> notModified = client.send(get(MATRIX).header("If-None-Match", etag).build(),
+				HttpResponse.BodyHandlers.discarding());
+
+		assertThat(notModified.statusCode()).isEqualTo(304);
+		assertThat(notModified.headers().firstValue("ETag")).hasValue(etag);
+		assertThat(notModified.headers().firstValue("Cache-Control")).hasValue("no-cache");
+		assertThat(varyFields(notModified)).contains("accept");
+		for (String header : List.of(DemographyController.POPULATION_VERSION_HEADER,
+				DemographyController.POPULATION_AGE_HEADER, DemographyController.POPULATION_STALE_HEADER)) {
+			assertThat(notModified.headers().firstValue(header)).as(header).isPresent();
+		}
+		assertThat(notModified.headers().firstValue(DemographyController.POPULATION_VERSION_HEADER))
+				.isEqualTo(full.headers().firstValue(DemographyController.POPULATION_VERSION_HEADER));
+	}
+
+	@Test
+	void everyRepresentationHasItsOwnTagAndResponsesVaryByAccept() throws Exception {
+		HttpResponse<byte[]> json = client.send(get(MATRIX).header("Accept", "application/json").build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+		HttpResponse<byte[]> cbor = client.send(get(MATRIX).header("Accept", "application/cbor").build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+		String cborTag = cbor.headers().firstValue("ETag").orElseThrow();
+
+		assertThat(json.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith("application/json"));
+		assertThat(cbor.headers().firstValue("Content-Type")).hasValue("application/cbor");
+		assertThat(json.headers().firstValue("ETag")).isNotEqualTo(cbor.headers().firstValue("ETag"));
+		assertThat(varyFields(json)).contains("accept");
+		assertThat(varyFields(cbor)).contains("accept");
+
+		HttpResponse<Void> sameFormat = client.send(get(MATRIX)
+						.header("Accept", "application/cbor")
+						.header("If-None-Match", cborTag)
+						.build(),
+				HttpResponse.BodyHandlers.discarding());
+		HttpResponse<Void> otherFormat = client.send(get(MATRIX)
+						.header("Accept", "application/json")
+						.header("If-None-Match", cborTag)
+						.build(),
+				HttpResponse.BodyHandlers.discarding());
+
+		assertThat(sameFormat.statusCode()).isEqualTo(304);
+		assertThat(otherFormat.statusCode()).isEqualTo(200);
+	}
+
+	@Test
+	void negotiatesTheRepresentationLikeTheMessageConverters() {
+		assertThat(DemographyController.representation(null)).isEqualTo(PersonWireFormat.JSON);
+		assertThat(DemographyController.representation("*/*")).isEqualTo(PersonWireFormat.JSON);
+		assertThat(DemographyController.representation("application/*")).isEqualTo(PersonWireFormat.JSON);
+		assertThat(DemographyController.representation("application/cbor")).isEqualTo(PersonWireFormat.CBOR);
+		assertThat(DemographyController.representation("application/x-jackson-smile, application/json;q=0.5"))
+				.isEqualTo(PersonWireFormat.SMILE);
+		assertThat(DemographyController.representation("application/x-jackson-smile;q=0.5, application/json"))
+				.isEqualTo(PersonWireFormat.JSON);
+		assertThat(DemographyController.representation("text/html, application/cbor;q=0.9, */*;q=0.1"))
+				.isEqualTo(PersonWireFormat.CBOR);
+		assertThat(DemographyController.representation("not a media type")).isEqualTo(PersonWireFormat.JSON);
+	}
+
+	private HttpRequest.Builder get(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+	}
+
+	private static List<String> varyFields(HttpResponse<?> response) {
+		return response.headers().allValues("Vary").stream()
+				.flatMap(vary -> Arrays.stream(vary.split(",")))
+				.map(field -> field.trim().toLowerCase(Locale.ROOT))
+				.toList();
+	}
+
+	private static String gunzip(InputStream body) throws IOException {
+		try (InputStream in = new GZIPInputStream(body)) {
+			return new String(in.readAllBytes());
+		}
+	}
+
+	private static Population population() {
+		PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(false));
+		SyntheticPopulation.ingest(new SyntheticPopulation(31).persons(20_000), builder);
+		return builder.build();
+	}
+}
@@ -0,0 +1,77 @@
+package ru.itmo.demography_service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.aggregation.PersonColumnsBuilder;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DemographyMetricsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final DemographyMetrics demographyMetrics = new DemographyMetrics(meterRegistry);
+
+	@Test
+	void errorsAreCountedByCodeAndRootCause() {
+		demographyMetrics.errorHandled("PERSON_SERVICE_ERROR", new PersonServiceException("Unable to retrieve",
+				new IOException("Read failed", new ConnectException("Connection refused"))));
+		demographyMetrics.errorHandled("PERSON_SERVICE_ERROR", new PersonServiceException("Unable to retrieve",
+				new ConnectException("Connection refused")));
+		demographyMetrics.errorHandled("INVALID_REQUEST_PARAMETER", new IllegalArgumentException("Bad bucket"));
+
+		assertThat(meterRegistry.get("demography.errors")
+				.tag("error", "PERSON_SERVICE_ERROR")
+				.tag("cause", "ConnectException")
+				.counter().count()).isEqualTo(2);
+		assertThat(meterRegistry.get("demography.errors")
+				.tag("error", "INVALID_REQUEST_PARAMETER")
+				.tag("cause", "IllegalArgumentException")
+				.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void syncsAreTimedPerModeAndPassTheirResultThrough() {
+		assertThat(demographyMetrics.timeSync("full", () -> 42)).isEqualTo(42);
+		demographyMetrics.timeSync("delta", () -> null);
+		demographyMetrics.timeSync("delta", () -> null);
+
+		assertThat(meterRegistry.get("demography.population.sync").tag("mode", "full").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("demography.population.sync").tag("mode", "delta").timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	void aLoadedPopulationUpdatesTheGauges() {
+		List<PersonDTO> persons = new SyntheticPopulation(19).persons(2_000);
+		PopulationBuilder builder = new PopulationBuilder(new PersonColumnsBuilder(false));
+		SyntheticPopulation.ingest(persons, builder);
+		Population population = builder.build();
+
+		demographyMetrics.populationLoaded(population);
+
+		assertThat(nullAttributes("nationality")).isEqualTo(count(persons, person -> person.nationality() == null));
+		assertThat(nullAttributes("hairColor")).isEqualTo(count(persons, person -> person.hairColor() == null));
+		assertThat(nullAttributes("eyeColor")).isEqualTo(count(persons, person -> person.eyeColor() == null));
+		assertThat(meterRegistry.get("demography.population.store.size").gauge().value())
+				.isEqualTo(population.columns().retainedBytes());
+		assertThat(meterRegistry.get("demography.population.locations").gauge().value())
+				.isEqualTo(persons.stream().map(person -> person.location().name()).distinct().count());
+	}
+
+	private static long count(List<PersonDTO> persons, Predicate<PersonDTO> predicate) {
+		return persons.stream().filter(predicate).count();
+	}
+
+	private double nullAttributes(String attribute) {
+		return meterRegistry.get("demography.population.null.attributes").tag("attribute", attribute).gauge().value();
+	}
+}
@@ -0,0 +1,116 @@
+package ru.itmo.demography_service.metrics;
+
+import feign.Client;
+import feign.Contract;
+import feign.Request;
+import feign.RequestLine;
+import feign.RequestTemplate;
+import feign.Response;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersonServiceClientMetricsTests {
+
+	private static final byte[] BODY = "[{\"id\": 1}, {\"id\": 2}]".getBytes(StandardCharsets.UTF_8);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final PersonServiceClientMetrics metrics =
+			new PersonServiceClientMetrics(new DemographyMetrics(meterRegistry));
+
+	@Test
+	void callsAreTimedPerMethodAndStatus() throws IOException {
+		Client client = metrics.enrich(answering(200));
+
+		client.execute(request("streamAllPersons"), null).close();
+		client.execute(request("streamAllPersons"), null).close();
+		metrics.enrich(answering(503)).execute(request("getPersonsCount"), null).close();
+
+		assertThat(requests("streamAllPersons", "200").count()).isEqualTo(2);
+		assertThat(requests("getPersonsCount", "503").count()).isEqualTo(1);
+	}
+
+	@Test
+	void transportFailuresAreTimedAsIoErrors() {
+		Client failing = (request, options) -> {
+			throw new IOException("Connection reset");
+		};
+		Client client = metrics.enrich(failing);
+
+		assertThatThrownBy(() -> client.execute(request("streamAllPersons"), null)).isInstanceOf(IOException.class);
+
+		assertThat(requests("streamAllPersons", "IO_ERROR").count()).isEqualTo(1);
+	}
+
+	@Test
+	void theBodyIsMeasuredOnceWhenItIsClosed() throws IOException {
+		Response response = metrics.enrich(answering(200)).execute(request("streamAllPersons"), null);
+		try (InputStream body = response.body().asInputStream()) {
+			assertThat(body.read()).isEqualTo('[');
+			assertThat(body.skip(3)).isEqualTo(3);
+			body.readAllBytes();
+
+			assertThat(meterRegistry.find("demography.person-service.response.bytes").summary()).isNull();
+		}
+		response.close();
+
+		DistributionSummary bytes = meterRegistry.get("demography.person-service.response.bytes")
+				.tag("method", "streamAllPersons").summary();
+		assertThat(bytes.count()).isEqualTo(1);
+		assertThat(bytes.totalAmount()).isEqualTo(BODY.length);
+		assertThat(meterRegistry.get("demography.person-service.response.read")
+				.tag("method", "streamAllPersons").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void requestsNotMadeThroughTheClientInterfaceAreUnknown() {
+		Request request = Request.create(Request.HttpMethod.GET, "http://person-service/persons",
+				Map.of(), null, StandardCharsets.UTF_8, null);
+
+		assertThat(PersonServiceClientMetrics.methodName(request)).isEqualTo("unknown");
+	}
+
+	private Timer requests(String method, String status) {
+		return meterRegistry.get("demography.person-service.requests")
+				.tag("method", method)
+				.tag("status", status)
+				.timer();
+	}
+
+	private static Request request(String method) {
+		RequestTemplate template = new RequestTemplate().methodMetadata(
+				new Contract.Default().parseAndValidateMetadata(PersonService.class).stream()
+						.filter(metadata -> metadata.method().getName().equals(method))
+						.findFirst()
+						.orElseThrow());
+		return Request.create(Request.HttpMethod.GET, "http://person-service/persons",
+				Map.of(), null, StandardCharsets.UTF_8, template);
+	}
+
+	private static Client answering(int status) {
+		return (request, options) -> Response.builder()
+				.status(status)
+				.request(request)
+				.headers(Map.of())
+				.body(BODY)
+				.build();
+	}
+
+	private interface PersonService {
+
+		@RequestLine("GET /persons")
+		Response streamAllPersons();
+
+		@RequestLine("GET /persons/count")
+		long getPersonsCount();
+	}
+}
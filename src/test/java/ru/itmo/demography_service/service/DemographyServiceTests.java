@@ -0,0 +1,144 @@
+package ru.itmo.demography_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.itmo.demography_service.aggregation.PersonColumnsBuilder;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.dto.BatchStatsResponseDTO;
+import ru.itmo.demography_service.dto.FilterQueryResponseDTO;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.PersonFilterDTO;
+import ru.itmo.demography_service.dto.StatsQueryDTO;
+import ru.itmo.demography_service.dto.StatsResultDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.dto.enums.PersonAttribute;
+import ru.itmo.demography_service.dto.enums.StatsQueryType;
+import ru.itmo.demography_service.exception.FeatureDisabledException;
+import ru.itmo.demography_service.exception.InvalidParameterException;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DemographyServiceTests {
+
+	private static final List<PersonDTO> PERSONS = new SyntheticPopulation(29).persons(2_000);
+
+	private final PopulationSnapshotService populationSnapshotService = mock(PopulationSnapshotService.class);
+	private final DemographyService service = new DemographyService(
+			populationSnapshotService, new DemographyMetrics(new SimpleMeterRegistry()));
+
+	@BeforeEach
+	void configureLimits() {
+		ReflectionTestUtils.setField(service, "maxBatchQueries", 3);
+	}
+
+	@Test
+	void sampleConfidenceOutsideTheOpenUnitIntervalFailsStartup() {
+		for (double confidence : new double[]{0.0, 1.0, 95.0, -0.5, Double.NaN}) {
+			ReflectionTestUtils.setField(service, "sampleConfidence", confidence);
+
+			assertThatThrownBy(service::checkSampleConfidence).as("confidence %s", confidence)
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessageContaining("demography.sample.confidence");
+		}
+
+		ReflectionTestUtils.setField(service, "sampleConfidence", 0.95);
+		service.checkSampleConfidence();
+	}
+
+	@Test
+	void batchAnswersEveryQueryInOrderFromOneSnapshot() {
+		PopulationSnapshot snapshot = snapshot(new PopulationBuilder());
+		when(populationSnapshotService.getSnapshot()).thenReturn(snapshot);
+
+		BatchStatsResponseDTO response = service.calculateBatch(List.of(
+				new StatsQueryDTO(StatsQueryType.NATIONALITY_EYE_COLOR, null, Country.SPAIN, Color.GREEN),
+				new StatsQueryDTO(StatsQueryType.HAIR_COLOR_PERCENTAGE, Color.BLUE, null, null),
+				new StatsQueryDTO(StatsQueryType.HAIR_COLOR_PERCENTAGE, Color.ORANGE, null, null)));
+
+		assertThat(response.populationVersion()).isEqualTo(snapshot.version());
+		assertThat(response.results()).containsExactly(
+				new StatsResultDTO(StatsQueryType.NATIONALITY_EYE_COLOR, null,
+						StatsCalculator.nationalityEyeColorStats(snapshot.cube(), Country.SPAIN, Color.GREEN)),
+				new StatsResultDTO(StatsQueryType.HAIR_COLOR_PERCENTAGE,
+						StatsCalculator.hairColorStats(snapshot.cube(), Color.BLUE), null),
+				new StatsResultDTO(StatsQueryType.HAIR_COLOR_PERCENTAGE,
+						StatsCalculator.hairColorStats(snapshot.cube(), Color.ORANGE), null));
+		verify(populationSnapshotService, times(1)).getSnapshot();
+	}
+
+	@Test
+	void batchQueriesMissingAnAttributeNameTheQueryAndField() {
+		assertThatThrownBy(() -> service.calculateBatch(List.of(
+				new StatsQueryDTO(StatsQueryType.HAIR_COLOR_PERCENTAGE, Color.BLUE, null, null),
+				new StatsQueryDTO(StatsQueryType.HAIR_COLOR_PERCENTAGE, null, null, null))))
+				.isInstanceOf(InvalidParameterException.class)
+				.hasMessage("Hair color is required for HAIR_COLOR_PERCENTAGE query #1")
+				.extracting("parameterName").isEqualTo("queries[1].hairColor");
+		assertThatThrownBy(() -> service.calculateBatch(List.of(
+				new StatsQueryDTO(StatsQueryType.NATIONALITY_EYE_COLOR, Color.BLUE, null, Color.GREEN))))
+				.isInstanceOf(InvalidParameterException.class)
+				.extracting("parameterName").isEqualTo("queries[0].nationality");
+		assertThatThrownBy(() -> service.calculateBatch(List.of(
+				new StatsQueryDTO(StatsQueryType.NATIONALITY_EYE_COLOR, null, Country.INDIA, null))))
+				.isInstanceOf(InvalidParameterException.class)
+				.extracting("parameterName").isEqualTo("queries[0].eyeColor");
+		verify(populationSnapshotService, never()).getSnapshot();
+	}
+
+	@Test
+	void batchesOverTheLimitAreRejectedWithoutTakingASnapshot() {
+		StatsQueryDTO query = new StatsQueryDTO(StatsQueryType.HAIR_COLOR_PERCENTAGE, Color.BLUE, null, null);
+
+		assertThatThrownBy(() -> service.calculateBatch(List.of(query, query, query, query)))
+				.isInstanceOf(InvalidParameterException.class)
+				.hasMessage("Batch cannot contain more than 3 queries")
+				.extracting("parameterName").isEqualTo("queries");
+		verify(populationSnapshotService, never()).getSnapshot();
+	}
+
+	@Test
+	void filterQueriesCountTheMatchingPersons() {
+		when(populationSnapshotService.getSnapshot())
+				.thenReturn(snapshot(new PopulationBuilder(new PersonColumnsBuilder(false))));
+
+		FilterQueryResponseDTO result = service.calculateFilterQuery(hairColorIn("BLUE"));
+
+		assertThat(result.totalPersons()).isEqualTo(PERSONS.size());
+		assertThat(result.matchingPersons())
+				.isEqualTo(PERSONS.stream().filter(person -> person.hairColor() == Color.BLUE).count());
+	}
+
+	@Test
+	void filterQueriesWithoutTheColumnarStoreReportTheDisabledFeature() {
+		when(populationSnapshotService.getSnapshot()).thenReturn(snapshot(new PopulationBuilder()));
+
+		assertThatThrownBy(() -> service.calculateFilterQuery(hairColorIn("BLUE")))
+				.isInstanceOf(FeatureDisabledException.class)
+				.hasMessageContaining("demography.store.columnar");
+	}
+
+	private static PopulationSnapshot snapshot(PopulationBuilder builder) {
+		SyntheticPopulation.ingest(PERSONS, builder);
+		Population population = builder.build();
+		return new PopulationSnapshot(1, Instant.now(), Instant.now(), population);
+	}
+
+	private static PersonFilterDTO hairColorIn(String... values) {
+		return new PersonFilterDTO(null, null, null, PersonAttribute.HAIR_COLOR, List.of(values), null);
+	}
+}
@@ -0,0 +1,341 @@
+package ru.itmo.demography_service.service;
+
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.PersonServiceClient;
+import ru.itmo.demography_service.client.PersonWireFormat;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the loader against a mocked Person Service client that pages through an in-memory
+ * list of persons, so what upstream holds can change between loads.
+ */
+class PopulationLoaderTests {
+
+	private static final int PAGE_SIZE = 1_000;
+	private static final List<PersonDTO> PERSONS = new SyntheticPopulation(41).persons(4_000);
+	private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "http://person-service/persons",
+			Map.of(), null, StandardCharsets.UTF_8, null);
+
+	private final List<PersonDTO> upstream = new ArrayList<>(PERSONS.subList(0, 2_500));
+	private final PersonServiceClient personServiceClient = mock(PersonServiceClient.class);
+	private final PopulationLoader loader = new PopulationLoader(
+			personServiceClient, new MockEnvironment(), new DemographyMetrics(new SimpleMeterRegistry()));
+
+	@BeforeEach
+	void configureLoader() {
+		configure(loader);
+		loader.startPageExecutor();
+
+		when(personServiceClient.getPersonsCount()).thenAnswer(invocation -> (long) upstream.size());
+		when(personServiceClient.streamPersonsPage(anyInt(), anyInt()))
+				.thenAnswer(invocation -> page(invocation.getArgument(0), invocation.getArgument(1)));
+	}
+
+	@AfterEach
+	void stopLoader() {
+		loader.stopPageExecutor();
+	}
+
+	@Test
+	void pagedLoadMergesEveryPageInOrder() {
+		Population population = loader.load(null);
+
+		assertHolds(population, upstream);
+		assertThat(population.sample().populationSize()).isEqualTo(upstream.size());
+		assertThat(population.sample().size()).isEqualTo(500);
+		verify(personServiceClient, times(3)).streamPersonsPage(anyInt(), eq(PAGE_SIZE));
+	}
+
+	@Test
+	void personsAddedAfterTheCountAreReadUntilAShortPage() {
+		when(personServiceClient.getPersonsCount()).thenReturn(2_000L);
+
+		Population population = loader.load(null);
+
+		assertHolds(population, upstream);
+	}
+
+	@Test
+	void aFailedPageIsFetchedAgain() {
+		AtomicInteger failures = new AtomicInteger();
+		when(personServiceClient.streamPersonsPage(anyInt(), anyInt())).thenAnswer(invocation -> {
+			int page = invocation.getArgument(0);
+			return page == 1 && failures.getAndIncrement() == 0 ? status(503) : page(page, invocation.getArgument(1));
+		});
+
+		Population population = loader.load(null);
+
+		assertHolds(population, upstream);
+		verify(personServiceClient, times(2)).streamPersonsPage(1, PAGE_SIZE);
+	}
+
+	@Test
+	void aPageFailingEveryAttemptFailsTheLoad() {
+		when(personServiceClient.streamPersonsPage(eq(1), anyInt())).thenAnswer(invocation -> status(503));
+
+		assertThatThrownBy(() -> loader.load(null))
+				.isInstanceOf(PersonServiceException.class)
+				.hasMessage("Unable to retrieve person data from external service");
+		verify(personServiceClient, times(3)).streamPersonsPage(1, PAGE_SIZE);
+	}
+
+	@Test
+	void deltaSyncReadsOnlyTheTailAfterTheBase() {
+		Population base = loader.load(null);
+		upstream.addAll(PERSONS.subList(2_500, 3_700));
+
+		Population extended = loader.loadDelta(base);
+
+		assertHolds(extended, upstream);
+		assertThat(extended.sample().populationSize()).isEqualTo(upstream.size());
+		assertHolds(base, upstream.subList(0, 2_500));
+		verify(personServiceClient, times(1)).streamPersonsPage(0, PAGE_SIZE);
+		verify(personServiceClient, times(1)).streamPersonsPage(1, PAGE_SIZE);
+		verify(personServiceClient, times(2)).streamPersonsPage(2, PAGE_SIZE);
+		verify(personServiceClient, times(1)).streamPersonsPage(3, PAGE_SIZE);
+	}
+
+	@Test
+	void deltaSyncOfAnUnchangedCountKeepsTheBase() {
+		Population base = loader.load(null);
+
+		assertThat(loader.loadDelta(base)).isSameAs(base);
+		verify(personServiceClient, times(3)).streamPersonsPage(anyInt(), anyInt());
+	}
+
+	@Test
+	void aShrunkPopulationNeedsAFullResync() {
+		Population base = loader.load(null);
+		upstream.remove(upstream.size() - 1);
+
+		assertThat(loader.loadDelta(base)).isNull();
+	}
+
+	@Test
+	void aTailBelowTheIdWatermarkNeedsAFullResync() {
+		Population base = loader.load(null);
+		upstream.add(reissued(PERSONS.get(2_500), 5, PERSONS.get(2_500).creationDate()));
+		upstream.addAll(PERSONS.subList(2_501, 2_600));
+
+		assertThat(loader.loadDelta(base)).isNull();
+	}
+
+	@Test
+	void aTailBelowTheCreationDateWatermarkNeedsAFullResync() {
+		Population base = loader.load(null);
+		upstream.add(reissued(PERSONS.get(2_500), 10_000, PERSONS.get(0).creationDate()));
+
+		assertThat(loader.loadDelta(base)).isNull();
+	}
+
+	@Test
+	void aTailShorterThanTheCountNeedsAFullResync() {
+		Population base = loader.load(null);
+		when(personServiceClient.getPersonsCount()).thenReturn(2_600L);
+
+		assertThat(loader.loadDelta(base)).isNull();
+	}
+
+	@Test
+	void singleModeRevalidatesWithTheUpstreamEntityTag() {
+		ReflectionTestUtils.setField(loader, "mode", "single");
+		when(personServiceClient.streamAllPersons(any())).thenAnswer(invocation ->
+				"\"v1\"".equals(invocation.getArgument(0)) ? status(304) : json(upstream, etag("\"v1\"")));
+
+		Population first = loader.load(null);
+		Population second = loader.load(first);
+
+		assertHolds(first, upstream);
+		assertThat(second).isSameAs(first);
+		assertThat(loader.upstreamEntityTag(first)).isEqualTo("\"v1\"");
+		verify(personServiceClient).streamAllPersons(null);
+		verify(personServiceClient).streamAllPersons("\"v1\"");
+	}
+
+	@Test
+	void aChangedUpstreamReplacesThePopulationAndItsTag() {
+		ReflectionTestUtils.setField(loader, "mode", "single");
+		when(personServiceClient.streamAllPersons(null)).thenAnswer(invocation -> json(upstream, etag("\"v1\"")));
+		Population first = loader.load(null);
+		upstream.addAll(PERSONS.subList(2_500, 3_000));
+		when(personServiceClient.streamAllPersons("\"v1\"")).thenAnswer(invocation -> json(upstream, etag("\"v2\"")));
+
+		Population second = loader.load(first);
+
+		assertHolds(second, upstream);
+		assertThat(loader.upstreamEntityTag(second)).isEqualTo("\"v2\"");
+		assertThat(loader.upstreamEntityTag(first)).isNull();
+	}
+
+	@Test
+	void anUntaggedResponseIsFetchedUnconditionallyNextTime() {
+		ReflectionTestUtils.setField(loader, "mode", "single");
+		when(personServiceClient.streamAllPersons(any())).thenAnswer(invocation -> json(upstream, Map.of()));
+
+		Population first = loader.load(null);
+		Population second = loader.load(first);
+
+		assertThat(loader.upstreamEntityTag(first)).isNull();
+		assertThat(second).isNotSameAs(first);
+		verify(personServiceClient, times(2)).streamAllPersons(null);
+	}
+
+	@Test
+	void aRestoredPopulationIsRevalidatedWithTheTagItWasSavedWith() {
+		ReflectionTestUtils.setField(loader, "mode", "single");
+		when(personServiceClient.streamAllPersons("\"v1\"")).thenAnswer(invocation -> status(304));
+		Population restored = new PopulationBuilder().build();
+
+		loader.restored(restored, "\"v1\"");
+
+		assertThat(loader.load(restored)).isSameAs(restored);
+		verify(personServiceClient).streamAllPersons("\"v1\"");
+	}
+
+	@Test
+	void pagesAreFetchedOnPlatformThreadsByDefault() {
+		List<Thread> fetchers = recordFetchingThreads();
+
+		loader.load(null);
+
+		assertThat(fetchers).isNotEmpty().allSatisfy(thread -> {
+			assertThat(thread.getName()).startsWith("person-page-fetch-");
+			assertThat(thread.isDaemon()).isTrue();
+			assertThat(thread.toString()).doesNotStartWith("VirtualThread");
+		});
+	}
+
+	@Test
+	@EnabledForJreRange(min = JRE.JAVA_21)
+	void virtualThreadModeFetchesPagesOnVirtualThreads() {
+		PopulationLoader virtualLoader = new PopulationLoader(personServiceClient,
+				new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"),
+				new DemographyMetrics(new SimpleMeterRegistry()));
+		configure(virtualLoader);
+		virtualLoader.startPageExecutor();
+		List<Thread> fetchers = recordFetchingThreads();
+
+		try {
+			assertHolds(virtualLoader.load(null), upstream);
+		} finally {
+			virtualLoader.stopPageExecutor();
+		}
+
+		assertThat(fetchers).isNotEmpty().allSatisfy(thread -> {
+			assertThat(thread.getName()).startsWith("person-page-fetch-");
+			assertThat(thread.toString()).startsWith("VirtualThread");
+		});
+	}
+
+	private List<Thread> recordFetchingThreads() {
+		List<Thread> fetchers = new CopyOnWriteArrayList<>();
+		when(personServiceClient.streamPersonsPage(anyInt(), anyInt())).thenAnswer(invocation -> {
+			fetchers.add(Thread.currentThread());
+			return page(invocation.getArgument(0), invocation.getArgument(1));
+		});
+		return fetchers;
+	}
+
+	private static void configure(PopulationLoader loader) {
+		ReflectionTestUtils.setField(loader, "mode", "paged");
+		ReflectionTestUtils.setField(loader, "pageSize", PAGE_SIZE);
+		ReflectionTestUtils.setField(loader, "parallelism", 4);
+		ReflectionTestUtils.setField(loader, "pageMaxAttempts", 3);
+		ReflectionTestUtils.setField(loader, "pageRetryBackoffMs", 0L);
+		ReflectionTestUtils.setField(loader, "sampleSize", 500);
+		ReflectionTestUtils.setField(loader, "gridCellSize", 100);
+	}
+
+	private static PersonDTO reissued(PersonDTO person, int id, LocalDateTime creationDate) {
+		return new PersonDTO(id, person.name(), person.coordinates(), creationDate, person.height(), person.weight(),
+				person.hairColor(), person.eyeColor(), person.nationality(), person.location());
+	}
+
+	private static Map<String, Collection<String>> etag(String etag) {
+		return Map.of("ETag", List.of(etag));
+	}
+
+	private Response page(int page, int size) {
+		int from = Math.min(upstream.size(), page * size);
+		int to = Math.min(upstream.size(), from + size);
+		return json(upstream.subList(from, to), Map.of());
+	}
+
+	private static Response json(List<PersonDTO> persons, Map<String, Collection<String>> headers) {
+		Map<String, Collection<String>> withType = new HashMap<>(headers);
+		withType.put("Content-Type", List.of(PersonWireFormat.JSON.mediaType()));
+		return Response.builder()
+				.status(200)
+				.request(REQUEST)
+				.headers(withType)
+				.body(SyntheticPopulation.encode(persons, PersonWireFormat.JSON))
+				.build();
+	}
+
+	private static Response status(int status) {
+		return Response.builder()
+				.status(status)
+				.request(REQUEST)
+				.headers(Map.of())
+				.build();
+	}
+
+	private static void assertHolds(Population population, List<PersonDTO> persons) {
+		PersonCountCube cube = population.cube();
+		PersonCountCube expected = PersonCountCube.of(persons);
+		assertThat(population.size()).isEqualTo(persons.size());
+		for (Country nationality : withNull(Country.values())) {
+			for (Color hairColor : withNull(Color.values())) {
+				for (Color eyeColor : withNull(Color.values())) {
+					assertThat(cube.count(nationality, hairColor, eyeColor))
+							.isEqualTo(expected.count(nationality, hairColor, eyeColor));
+				}
+			}
+		}
+		assertThat(population.maxId()).isEqualTo(persons.get(persons.size() - 1).id().longValue());
+	}
+
+	private static <E> List<E> withNull(E[] values) {
+		List<E> all = new ArrayList<>(Arrays.asList(values));
+		all.add(null);
+		return all;
+	}
+}
@@ -0,0 +1,262 @@
+package ru.itmo.demography_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PopulationSnapshotServiceTests {
+
+	private static final int CALLERS = 8;
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final PopulationLoader populationLoader = mock(PopulationLoader.class);
+	private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+	private final PopulationSnapshotService service = new PopulationSnapshotService(
+			populationLoader, taskScheduler, new DemographyMetrics(registry),
+			new PopulationFileStore(false, "population.bin"));
+	private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+	@AfterEach
+	void stopCallers() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void concurrentColdStartCallersShareOneLoad() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Population population = new PopulationBuilder().build();
+		when(populationLoader.load(any())).thenAnswer(invocation -> {
+			release.await();
+			return population;
+		});
+
+		List<Future<PopulationSnapshot>> snapshots = submitCallers();
+		awaitCoalescedCallers(CALLERS - 1);
+		release.countDown();
+
+		for (Future<PopulationSnapshot> snapshot : snapshots) {
+			assertThat(snapshot.get(5, TimeUnit.SECONDS).population()).isSameAs(population);
+			assertThat(snapshot.get().version()).isEqualTo(1);
+		}
+		verify(populationLoader, times(1)).load(any());
+	}
+
+	@Test
+	void coalescedCallersFailInsteadOfHangingWhenTheLoadDiesWithAnError() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		when(populationLoader.load(any())).thenAnswer(invocation -> {
+			release.await();
+			throw new StackOverflowError("loader");
+		});
+
+		List<Future<PopulationSnapshot>> snapshots = submitCallers();
+		awaitCoalescedCallers(CALLERS - 1);
+		release.countDown();
+
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			int errors = 0;
+			int wrapped = 0;
+			for (Future<PopulationSnapshot> snapshot : snapshots) {
+				try {
+					snapshot.get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof StackOverflowError) {
+						errors++;
+					} else if (e.getCause() instanceof PersonServiceException) {
+						wrapped++;
+					}
+				}
+			}
+			assertThat(errors).isEqualTo(1);
+			assertThat(wrapped).isEqualTo(CALLERS - 1);
+		});
+	}
+
+	@Test
+	void aCallerThatLostTheRaceToAFinishedRefreshDoesNotLoadAgain() {
+		when(populationLoader.load(any()))
+				.thenReturn(new PopulationBuilder().build(), new PopulationBuilder().build());
+
+		PopulationSnapshot first = service.refresh();
+		PopulationSnapshot second = service.refresh();
+
+		assertThat(service.refreshIfOlderThan(first)).isSameAs(second);
+		assertThat(second.version()).isEqualTo(2);
+		verify(populationLoader, times(2)).load(any());
+	}
+
+	@Test
+	void aFailedLoadLeavesNoRefreshInFlight() {
+		when(populationLoader.load(any()))
+				.thenThrow(new PersonServiceException("down"))
+				.thenReturn(new PopulationBuilder().build());
+
+		assertThatThrownBy(service::refresh).isInstanceOf(PersonServiceException.class);
+		assertThat(service.refresh().version()).isEqualTo(1);
+	}
+
+	@Test
+	void aFreshSnapshotIsServedWithoutFetchingAgain() {
+		ReflectionTestUtils.setField(service, "maxStalenessMs", 60_000L);
+		when(populationLoader.load(any())).thenReturn(new PopulationBuilder().build());
+
+		PopulationSnapshot first = service.getSnapshot();
+		PopulationSnapshot second = service.getSnapshot();
+
+		assertThat(second).isSameAs(first);
+		assertThat(service.isStale(second)).isFalse();
+		verify(populationLoader, times(1)).load(any());
+		verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+	}
+
+	@Test
+	void aStaleSnapshotIsServedAtOnceWhileOneBackgroundRefreshIsScheduled() {
+		when(populationLoader.load(any())).thenReturn(new PopulationBuilder().build());
+		PopulationSnapshot loaded = service.refresh();
+
+		assertThat(service.getSnapshot()).isSameAs(loaded);
+		assertThat(service.getSnapshot()).isSameAs(loaded);
+
+		verify(populationLoader, times(1)).load(any());
+		verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+	}
+
+	@Test
+	void aFailedScheduledRefreshKeepsServingTheLastVersion() {
+		when(populationLoader.load(any()))
+				.thenReturn(new PopulationBuilder().build())
+				.thenThrow(new PersonServiceException("down"));
+		PopulationSnapshot loaded = service.refresh();
+
+		service.scheduledRefresh();
+
+		assertThat(service.getSnapshot()).isSameAs(loaded);
+		assertThat(loaded.version()).isEqualTo(1);
+	}
+
+	@Test
+	void anUnchangedPopulationKeepsItsVersionAndEntityTag() {
+		incrementalSync();
+		Population population = new PopulationBuilder().build();
+		when(populationLoader.load(any())).thenReturn(population);
+		when(populationLoader.loadDelta(population)).thenReturn(population);
+
+		PopulationSnapshot first = service.refresh();
+		PopulationSnapshot second = service.refresh();
+
+		assertThat(second.version()).isEqualTo(first.version());
+		assertThat(second.fetchedAt()).isAfterOrEqualTo(first.fetchedAt());
+		assertThat(service.entityTag(second, "json")).isEqualTo(service.entityTag(first, "json"));
+		verify(populationLoader, times(1)).load(any());
+	}
+
+	@Test
+	void everyVersionAndRepresentationHasItsOwnEntityTag() {
+		when(populationLoader.load(any()))
+				.thenReturn(new PopulationBuilder().build(), new PopulationBuilder().build());
+
+		PopulationSnapshot first = service.refresh();
+		PopulationSnapshot second = service.refresh();
+
+		assertThat(service.entityTag(first, "json")).startsWith("W/\"").endsWith("-1-json\"");
+		assertThat(service.entityTag(second, "json")).isNotEqualTo(service.entityTag(first, "json"));
+		assertThat(service.entityTag(first, "cbor")).isNotEqualTo(service.entityTag(first, "json"));
+	}
+
+	@Test
+	void aDivergedDeltaSyncFallsBackToAFullResync() {
+		incrementalSync();
+		Population first = new PopulationBuilder().build();
+		Population resynced = new PopulationBuilder().build();
+		when(populationLoader.load(any())).thenReturn(first, resynced);
+		when(populationLoader.loadDelta(first)).thenReturn(null);
+
+		PopulationSnapshot initial = service.refresh();
+		PopulationSnapshot next = service.refresh();
+
+		assertThat(next.population()).isSameAs(resynced);
+		assertThat(next.version()).isEqualTo(2);
+		assertThat(next.fullSyncAt()).isEqualTo(next.fetchedAt()).isAfterOrEqualTo(initial.fullSyncAt());
+		verify(populationLoader).loadDelta(first);
+		verify(populationLoader, times(2)).load(any());
+	}
+
+	@Test
+	void anAppliedDeltaSyncKeepsTheTimeOfTheLastFullSync() {
+		incrementalSync();
+		Population first = new PopulationBuilder().build();
+		Population extended = new PopulationBuilder().build();
+		when(populationLoader.load(any())).thenReturn(first);
+		when(populationLoader.loadDelta(first)).thenReturn(extended);
+
+		PopulationSnapshot initial = service.refresh();
+		PopulationSnapshot next = service.refresh();
+
+		assertThat(next.population()).isSameAs(extended);
+		assertThat(next.version()).isEqualTo(2);
+		assertThat(next.fullSyncAt()).isEqualTo(initial.fullSyncAt());
+		verify(populationLoader, times(1)).load(any());
+	}
+
+	@Test
+	void aFullResyncIsForcedOnceTheIntervalHasPassed() {
+		incrementalSync();
+		ReflectionTestUtils.setField(service, "fullResyncIntervalMs", 0L);
+		when(populationLoader.load(any())).thenReturn(new PopulationBuilder().build(), new PopulationBuilder().build());
+
+		service.refresh();
+		service.refresh();
+
+		verify(populationLoader, never()).loadDelta(any());
+		verify(populationLoader, times(2)).load(any());
+	}
+
+	private void incrementalSync() {
+		ReflectionTestUtils.setField(service, "syncMode", "incremental");
+		ReflectionTestUtils.setField(service, "fullResyncIntervalMs", 3_600_000L);
+	}
+
+	private List<Future<PopulationSnapshot>> submitCallers() {
+		List<Future<PopulationSnapshot>> snapshots = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			snapshots.add(callers.submit(service::getSnapshot));
+		}
+		return snapshots;
+	}
+
+	private void awaitCoalescedCallers(int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (registry.get("demography.snapshot.refresh.coalesced").counter().count() < expected) {
+			assertThat(System.nanoTime()).as("callers joining the refresh in flight").isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+}
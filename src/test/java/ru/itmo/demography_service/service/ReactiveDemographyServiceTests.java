@@ -0,0 +1,109 @@
+package ru.itmo.demography_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.PersonSink;
+import ru.itmo.demography_service.client.ReactivePersonServiceClient;
+import ru.itmo.demography_service.dto.HairColorStatsDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorStatsDTO;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.exception.PersonServiceException;
+import ru.itmo.demography_service.metrics.DemographyMetrics;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveDemographyServiceTests {
+
+	private static final List<PersonDTO> PERSONS = new SyntheticPopulation(23).persons(3_000);
+
+	private final ReactivePersonServiceClient reactivePersonServiceClient = mock(ReactivePersonServiceClient.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ReactiveDemographyService reactiveDemographyService = new ReactiveDemographyService(
+			reactivePersonServiceClient, new DemographyMetrics(meterRegistry));
+
+	private final AtomicInteger streams = new AtomicInteger();
+
+	@BeforeEach
+	void streamPersons() {
+		when(reactivePersonServiceClient.streamAllPersons(any())).thenAnswer(invocation -> {
+			Supplier<PersonSink> sinkFactory = invocation.getArgument(0);
+			return Mono.fromCallable(() -> {
+				streams.incrementAndGet();
+				PersonSink sink = sinkFactory.get();
+				SyntheticPopulation.ingest(PERSONS, sink);
+				return sink;
+			});
+		});
+	}
+
+	@Test
+	void statsMatchTheBlockingCalculation() {
+		PersonCountCube cube = cube();
+
+		HairColorStatsDTO hairColor = reactiveDemographyService.calculateHairColorPercentage(Color.BLUE).block();
+		NationalityEyeColorStatsDTO eyeColor = reactiveDemographyService
+				.calculateNationalityEyeColorStats(Country.SPAIN, Color.GREEN).block();
+
+		assertThat(hairColor).isEqualTo(StatsCalculator.hairColorStats(cube, Color.BLUE));
+		assertThat(eyeColor).isEqualTo(StatsCalculator.nationalityEyeColorStats(cube, Country.SPAIN, Color.GREEN));
+		assertThat(hairColor.totalPersons()).isEqualTo(PERSONS.size());
+	}
+
+	@Test
+	void concurrentRequestsShareOneUpstreamStream() {
+		Mono<HairColorStatsDTO> first = reactiveDemographyService.calculateHairColorPercentage(Color.BLUE);
+		Mono<NationalityEyeColorStatsDTO> second = reactiveDemographyService
+				.calculateNationalityEyeColorStats(Country.INDIA, Color.BROWN);
+
+		first.block();
+		second.block();
+
+		assertThat(streams).hasValue(1);
+		assertThat(meterRegistry.counter("demography.reactive.stream.coalesced").count()).isEqualTo(1);
+	}
+
+	@Test
+	void aRequestAfterTheStreamCompletedStartsANewOne() {
+		reactiveDemographyService.calculateHairColorPercentage(Color.BLUE).block();
+		reactiveDemographyService.calculateHairColorPercentage(Color.BLUE).block();
+
+		assertThat(streams).hasValue(2);
+		assertThat(meterRegistry.counter("demography.reactive.stream.coalesced").count()).isZero();
+	}
+
+	@Test
+	void aFailedStreamIsNotSharedWithLaterRequests() {
+		when(reactivePersonServiceClient.streamAllPersons(any())).thenAnswer(invocation -> {
+			streams.incrementAndGet();
+			return Mono.error(new PersonServiceException("Unable to retrieve person data from external service"));
+		});
+
+		assertThatThrownBy(() -> reactiveDemographyService.calculateHairColorPercentage(Color.BLUE).block())
+				.isInstanceOf(PersonServiceException.class);
+		assertThatThrownBy(() -> reactiveDemographyService.calculateHairColorPercentage(Color.BLUE).block())
+				.isInstanceOf(PersonServiceException.class);
+
+		assertThat(streams).hasValue(2);
+	}
+
+	private static PersonCountCube cube() {
+		PopulationBuilder builder = new PopulationBuilder();
+		SyntheticPopulation.ingest(PERSONS, builder);
+		return builder.build().cube();
+	}
+}
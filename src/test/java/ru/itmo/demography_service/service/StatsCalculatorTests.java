@@ -0,0 +1,116 @@
+package ru.itmo.demography_service.service;
+
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.dto.HairColorDistributionDTO;
+import ru.itmo.demography_service.dto.NationalityEyeColorMatrixDTO;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+import ru.itmo.demography_service.support.SyntheticPopulation;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class StatsCalculatorTests {
+
+	private static final long UNBOUNDED = 1_000_000_000_000L;
+	private static final List<PersonDTO> PERSONS = new SyntheticPopulation(37).persons(5_000);
+
+	@Test
+	void normalQuantileMatchesTheTabulatedValues() {
+		assertThat(StatsCalculator.normalQuantile(0.5)).isCloseTo(0.0, within(1e-12));
+		assertThat(StatsCalculator.normalQuantile(0.975)).isCloseTo(1.959963985, within(1e-8));
+		assertThat(StatsCalculator.normalQuantile(0.995)).isCloseTo(2.575829304, within(1e-8));
+		assertThat(StatsCalculator.normalQuantile(0.01)).isCloseTo(-2.326347874, within(1e-8));
+		assertThat(StatsCalculator.normalQuantile(0.025)).isCloseTo(-StatsCalculator.normalQuantile(0.975), within(1e-12));
+	}
+
+	@Test
+	void normalQuantileRejectsProbabilitiesOutsideTheOpenInterval() {
+		assertThatThrownBy(() -> StatsCalculator.normalQuantile(0.0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> StatsCalculator.normalQuantile(1.0)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void proportionIntervalIsTheWilsonScoreIntervalForLargePopulations() {
+		assertThat(StatsCalculator.proportionInterval(50, 100, UNBOUNDED, 0.95))
+				.containsExactly(new double[]{0.4038, 0.5962}, within(1e-4));
+		assertThat(StatsCalculator.proportionInterval(30, 100, UNBOUNDED, 0.95))
+				.containsExactly(new double[]{0.2189, 0.3958}, within(1e-4));
+		assertThat(StatsCalculator.proportionInterval(0, 100, UNBOUNDED, 0.95))
+				.containsExactly(new double[]{0.0, 0.0370}, within(1e-4));
+	}
+
+	@Test
+	void proportionIntervalNarrowsWithTheFinitePopulationCorrection() {
+		assertThat(StatsCalculator.proportionInterval(30, 100, 200, 0.95))
+				.containsExactly(new double[]{0.2406, 0.3670}, within(1e-4));
+		assertThat(StatsCalculator.proportionInterval(30, 100, 100, 0.95)).containsExactly(0.3, 0.3);
+	}
+
+	@Test
+	void hairColorDistributionCountsEveryColorAndTheUnknowns() {
+		HairColorDistributionDTO distribution = StatsCalculator.hairColorDistribution(cube(PERSONS), 4);
+
+		assertThat(distribution.populationVersion()).isEqualTo(4);
+		assertThat(distribution.totalPersons()).isEqualTo(PERSONS.size());
+		assertThat(distribution.unknownCount()).isEqualTo(count(person -> person.hairColor() == null));
+		for (Color color : Color.values()) {
+			long expected = count(person -> person.hairColor() == color);
+			assertThat(distribution.counts()).containsEntry(color, expected);
+			assertThat(distribution.percentages().get(color)).isCloseTo(expected * 100.0 / PERSONS.size(), within(1e-9));
+		}
+		assertThat(distribution.counts().values().stream().mapToLong(Long::longValue).sum()
+				+ distribution.unknownCount()).isEqualTo(PERSONS.size());
+	}
+
+	@Test
+	void hairColorDistributionOfAnEmptyPopulationIsAllZero() {
+		HairColorDistributionDTO distribution = StatsCalculator.hairColorDistribution(cube(List.of()), 1);
+
+		assertThat(distribution.totalPersons()).isZero();
+		assertThat(distribution.counts()).containsOnlyKeys(Color.values())
+				.allSatisfy((color, count) -> assertThat(count).isZero());
+		assertThat(distribution.percentages()).allSatisfy((color, percentage) -> assertThat(percentage).isZero());
+	}
+
+	@Test
+	void nationalityEyeColorMatrixMatchesCountingPersonsDirectly() {
+		NationalityEyeColorMatrixDTO matrix = StatsCalculator.nationalityEyeColorMatrix(cube(PERSONS), 4);
+
+		assertThat(matrix.nationalities()).containsExactly(Country.values());
+		assertThat(matrix.eyeColors()).containsExactly(Color.values());
+		assertThat(matrix.totalPersons()).isEqualTo(PERSONS.size());
+		for (int row = 0; row < Country.values().length; row++) {
+			Country nationality = Country.values()[row];
+			assertThat(matrix.nationalityTotals()[row]).as("persons of %s", nationality)
+					.isEqualTo(count(person -> person.nationality() == nationality));
+			for (int column = 0; column < Color.values().length; column++) {
+				Color eyeColor = Color.values()[column];
+				assertThat(matrix.counts()[row][column]).as("persons of %s with %s eyes", nationality, eyeColor)
+						.isEqualTo(count(person -> person.nationality() == nationality && person.eyeColor() == eyeColor));
+			}
+		}
+		for (int column = 0; column < Color.values().length; column++) {
+			Color eyeColor = Color.values()[column];
+			assertThat(matrix.eyeColorTotals()[column]).as("persons with %s eyes", eyeColor)
+					.isEqualTo(count(person -> person.eyeColor() == eyeColor));
+		}
+	}
+
+	private static PersonCountCube cube(List<PersonDTO> persons) {
+		PopulationBuilder builder = new PopulationBuilder();
+		SyntheticPopulation.ingest(persons, builder);
+		return builder.build().cube();
+	}
+
+	private static long count(Predicate<PersonDTO> predicate) {
+		return PERSONS.stream().filter(predicate).count();
+	}
+}
@@ -0,0 +1,219 @@
+package ru.itmo.demography_service.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import ru.itmo.demography_service.client.PersonWireFormat;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Country;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process Person Service implementing every endpoint of {@code PersonServiceClient} over a
+ * {@link SyntheticPopulation}, in whichever {@link PersonWireFormat} the request prefers and
+ * gzip-compressed when the request accepts it. Every
+ * response is delayed by the configured latency to mimic a remote upstream. Only tests that
+ * exercise the HTTP transport need it; the others take persons from the generator directly.
+ */
+public final class PersonServiceStandIn implements AutoCloseable {
+
+	private static final String PERSONS = "/persons";
+	private static final String NATIONALITY_LESS_THAN = PERSONS + "/nationality-less-than/";
+
+	private final List<PersonDTO> persons;
+	private final Duration latency;
+	private final String entityTag;
+	private final Map<PersonWireFormat, byte[]> allPersons = new ConcurrentHashMap<>();
+	private final ExecutorService executor;
+	private final HttpServer server;
+
+	public PersonServiceStandIn(int size, long seed) throws IOException {
+		this(0, size, seed, SyntheticPopulation.DEFAULT_NULL_RATIO, Duration.ZERO);
+	}
+
+	/**
+	 * @param port      port to listen on, {@code 0} for any free port
+	 * @param nullRatio probability of each of hair color, eye color and nationality being {@code null}
+	 * @param latency   delay added before every response
+	 */
+	public PersonServiceStandIn(int port, int size, long seed, double nullRatio, Duration latency) throws IOException {
+		this.persons = new SyntheticPopulation(seed, nullRatio).persons(size);
+		this.latency = latency;
+		this.entityTag = "\"" + size + "-" + seed + "-" + nullRatio + "\"";
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "person-service-stand-in-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		this.server.createContext(PERSONS, this::handle);
+		this.server.setExecutor(executor);
+		this.server.start();
+	}
+
+	public String url() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	public List<PersonDTO> persons() {
+		return persons;
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!latency.isZero()) {
+				Thread.sleep(latency.toMillis(), latency.toNanosPart() % 1_000_000);
+			}
+
+			String path = exchange.getRequestURI().getPath();
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+			} else if (path.equals(PERSONS)) {
+				handlePersons(exchange);
+			} else if (path.equals(PERSONS + "/count")) {
+				send(exchange, PersonWireFormat.JSON, SyntheticPopulation.encode(persons.size(), PersonWireFormat.JSON));
+			} else if (path.startsWith(NATIONALITY_LESS_THAN)) {
+				handleNationalityLessThan(exchange, path.substring(NATIONALITY_LESS_THAN.length()));
+			} else {
+				handlePerson(exchange, path.substring(PERSONS.length() + 1));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handlePersons(HttpExchange exchange) throws IOException {
+		PersonWireFormat format = preferredFormat(exchange.getRequestHeaders().getFirst("Accept"));
+		exchange.getResponseHeaders().set("ETag", entityTag);
+		if (entityTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			exchange.sendResponseHeaders(304, -1);
+			return;
+		}
+
+		Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+		int page = Integer.parseInt(query.getOrDefault("page", "0"));
+		long size = Long.parseLong(query.getOrDefault("size", Integer.toString(Integer.MAX_VALUE)));
+
+		long from = Math.min((long) page * size, persons.size());
+		long to = Math.min(from + size, persons.size());
+		if (from == 0 && to == persons.size()) {
+			send(exchange, format, allPersons.computeIfAbsent(format, this::serializeAll));
+		} else {
+			send(exchange, format, SyntheticPopulation.encode(persons.subList((int) from, (int) to), format));
+		}
+	}
+
+	private void handlePerson(HttpExchange exchange, String id) throws IOException {
+		int index;
+		try {
+			index = Integer.parseInt(id) - 1;
+		} catch (NumberFormatException e) {
+			exchange.sendResponseHeaders(400, -1);
+			return;
+		}
+		if (index < 0 || index >= persons.size()) {
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+		send(exchange, PersonWireFormat.JSON, SyntheticPopulation.encode(persons.get(index), PersonWireFormat.JSON));
+	}
+
+	private void handleNationalityLessThan(HttpExchange exchange, String nationality) throws IOException {
+		Country bound;
+		try {
+			bound = Country.valueOf(nationality);
+		} catch (IllegalArgumentException e) {
+			exchange.sendResponseHeaders(400, -1);
+			return;
+		}
+
+		List<PersonDTO> matching = persons.stream()
+				.filter(person -> person.nationality() != null && person.nationality().compareTo(bound) < 0)
+				.toList();
+		send(exchange, PersonWireFormat.JSON, SyntheticPopulation.encode(matching, PersonWireFormat.JSON));
+	}
+
+	private byte[] serializeAll(PersonWireFormat format) {
+		return SyntheticPopulation.encode(persons, format);
+	}
+
+	private static void send(HttpExchange exchange, PersonWireFormat format, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", format.mediaType());
+		if (acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+			body = gzip(body);
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding != null) {
+			for (String coding : acceptEncoding.split(",")) {
+				if (coding.split(";")[0].trim().equalsIgnoreCase("gzip")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		}
+		return out.toByteArray();
+	}
+
+	private static Map<String, String> query(String rawQuery) {
+		Map<String, String> parameters = new HashMap<>();
+		if (rawQuery != null) {
+			for (String parameter : rawQuery.split("&")) {
+				int separator = parameter.indexOf('=');
+				if (separator > 0) {
+					parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+				}
+			}
+		}
+		return parameters;
+	}
+
+	private static PersonWireFormat preferredFormat(String accept) {
+		if (accept != null) {
+			for (String range : accept.split(",")) {
+				String mediaType = range.split(";")[0].trim();
+				for (PersonWireFormat format : PersonWireFormat.values()) {
+					if (format.mediaType().equalsIgnoreCase(mediaType)) {
+						return format;
+					}
+				}
+			}
+		}
+		return PersonWireFormat.JSON;
+	}
+}
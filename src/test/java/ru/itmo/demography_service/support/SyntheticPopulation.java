@@ -0,0 +1,214 @@
+package ru.itmo.demography_service.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import ru.itmo.demography_service.client.PersonSink;
+import ru.itmo.demography_service.client.PersonStreamReader;
+import ru.itmo.demography_service.client.PersonWireFormat;
+import ru.itmo.demography_service.dto.CoordinatesDTO;
+import ru.itmo.demography_service.dto.LocationDTO;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic populations shaped like the Person Service {@code /persons} payload,
+ * shared by the tests, the benchmarks and {@link PersonServiceStandIn}. The same seed, size and
+ * null ratio always produce the same persons.
+ */
+public final class SyntheticPopulation {
+
+	public static final double DEFAULT_NULL_RATIO = 0.1;
+
+	private static final Color[] COLORS = Color.values();
+	private static final Country[] COUNTRIES = Country.values();
+	private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	private static final Map<PersonWireFormat, ObjectMapper> MAPPERS = Map.of(
+			PersonWireFormat.JSON, JsonMapper.builder().findAndAddModules()
+					.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(),
+			PersonWireFormat.SMILE, SmileMapper.builder().findAndAddModules()
+					.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(),
+			PersonWireFormat.CBOR, CBORMapper.builder().findAndAddModules()
+					.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build()
+	);
+
+	private final long seed;
+	private final double nullRatio;
+
+	public SyntheticPopulation(long seed) {
+		this(seed, DEFAULT_NULL_RATIO);
+	}
+
+	/**
+	 * @param nullRatio probability of each of hair color, eye color and nationality being {@code null}
+	 */
+	public SyntheticPopulation(long seed, double nullRatio) {
+		this.seed = seed;
+		this.nullRatio = nullRatio;
+	}
+
+	/**
+	 * Attribute ordinals per person, {@code -1} for null: {@code [0]} hair color,
+	 * {@code [1]} eye color, {@code [2]} nationality.
+	 */
+	public byte[][] ordinals(int size) {
+		SplittableRandom random = new SplittableRandom(seed);
+		byte[][] columns = new byte[3][size];
+		for (int i = 0; i < size; i++) {
+			columns[0][i] = (byte) ordinal(random, COLORS.length);
+			columns[1][i] = (byte) ordinal(random, COLORS.length);
+			columns[2][i] = (byte) ordinal(random, COUNTRIES.length);
+		}
+		return columns;
+	}
+
+	public List<PersonDTO> persons(int size) {
+		SplittableRandom random = new SplittableRandom(seed);
+		List<PersonDTO> persons = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			persons.add(person(i + 1, random));
+		}
+		return persons;
+	}
+
+	public byte[] json(int size) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(size * 256);
+		try (InputStream in = jsonStream(size)) {
+			in.transferTo(out);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Streams the JSON array person by person, so arbitrarily large populations can be
+	 * ingested without holding the payload in memory.
+	 */
+	public InputStream jsonStream(long size) {
+		return new InputStream() {
+			private final SplittableRandom random = new SplittableRandom(seed);
+			private byte[] chunk = "[".getBytes(StandardCharsets.UTF_8);
+			private int position;
+			private long next = 1;
+
+			@Override
+			public int read() {
+				byte[] single = new byte[1];
+				return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) {
+				while (position == chunk.length) {
+					if (chunk.length == 0) {
+						return -1;
+					}
+					chunk = nextChunk();
+					position = 0;
+				}
+				int count = Math.min(length, chunk.length - position);
+				System.arraycopy(chunk, position, buffer, offset, count);
+				position += count;
+				return count;
+			}
+
+			private byte[] nextChunk() {
+				if (next > size + 1) {
+					return new byte[0];
+				}
+				if (next == size + 1) {
+					next++;
+					return "]".getBytes(StandardCharsets.UTF_8);
+				}
+				String json = toJson(person((int) next, random));
+				return ((next++ > 1 ? "," : "") + json).getBytes(StandardCharsets.UTF_8);
+			}
+		};
+	}
+
+	/**
+	 * Serializes {@code value} the way Person Service would answer with it in {@code format}.
+	 */
+	public static byte[] encode(Object value, PersonWireFormat format) {
+		try {
+			return MAPPERS.get(format).writeValueAsBytes(value);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Feeds {@code persons} to {@code sink} through {@link PersonStreamReader}, exactly as a
+	 * {@code /persons} response carrying them would be ingested.
+	 */
+	public static long ingest(List<PersonDTO> persons, PersonSink sink) {
+		try (InputStream body = new ByteArrayInputStream(encode(persons, PersonWireFormat.JSON))) {
+			return PersonStreamReader.read(body, PersonWireFormat.JSON, sink);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private PersonDTO person(int id, SplittableRandom random) {
+		Color hairColor = value(COLORS, ordinal(random, COLORS.length));
+		Color eyeColor = value(COLORS, ordinal(random, COLORS.length));
+		Country nationality = value(COUNTRIES, ordinal(random, COUNTRIES.length));
+
+		return new PersonDTO(
+				id,
+				"Person " + id,
+				new CoordinatesDTO(random.nextLong(-1000, 1000), random.nextLong(-1000, 1000)),
+				EPOCH.plusMinutes(id),
+				random.nextLong(140, 210),
+				(float) random.nextDouble(40, 120),
+				hairColor,
+				eyeColor,
+				nationality,
+				new LocationDTO(random.nextInt(-100, 100), random.nextDouble(), random.nextDouble(),
+						"Location " + random.nextInt(100))
+		);
+	}
+
+	private int ordinal(SplittableRandom random, int values) {
+		return random.nextDouble() < nullRatio ? -1 : random.nextInt(values);
+	}
+
+	private static <E> E value(E[] values, int ordinal) {
+		return ordinal < 0 ? null : values[ordinal];
+	}
+
+	private static String toJson(PersonDTO person) {
+		return "{\"id\":" + person.id()
+				+ ",\"name\":\"" + person.name() + "\""
+				+ ",\"coordinates\":{\"x\":" + person.coordinates().x() + ",\"y\":" + person.coordinates().y() + "}"
+				+ ",\"creationDate\":\"" + person.creationDate() + "\""
+				+ ",\"height\":" + person.height()
+				+ ",\"weight\":" + person.weight()
+				+ ",\"hairColor\":" + quoted(person.hairColor())
+				+ ",\"eyeColor\":" + quoted(person.eyeColor())
+				+ ",\"nationality\":" + quoted(person.nationality())
+				+ ",\"location\":{\"x\":" + person.location().x() + ",\"y\":" + person.location().y()
+				+ ",\"z\":" + person.location().z() + ",\"name\":\"" + person.location().name() + "\"}}";
+	}
+
+	private static String quoted(Enum<?> value) {
+		return value == null ? "null" : "\"" + value.name() + "\"";
+	}
+}
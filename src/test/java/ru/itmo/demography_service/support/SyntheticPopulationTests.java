@@ -0,0 +1,79 @@
+package ru.itmo.demography_service.support;
+
+import org.junit.jupiter.api.Test;
+import ru.itmo.demography_service.aggregation.PersonCountCube;
+import ru.itmo.demography_service.aggregation.Population;
+import ru.itmo.demography_service.aggregation.PopulationBuilder;
+import ru.itmo.demography_service.client.PersonStreamReader;
+import ru.itmo.demography_service.dto.PersonDTO;
+import ru.itmo.demography_service.dto.enums.Color;
+import ru.itmo.demography_service.dto.enums.Country;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * The benchmarks measure what the generator produces, so it has to produce what the tests
+ * check: the same persons for the same seed whichever way they are handed out.
+ */
+class SyntheticPopulationTests {
+
+	@Test
+	void theSameSeedGivesTheSamePersons() {
+		assertThat(new SyntheticPopulation(5).persons(500)).isEqualTo(new SyntheticPopulation(5).persons(500));
+		assertThat(new SyntheticPopulation(5).persons(500)).isNotEqualTo(new SyntheticPopulation(6).persons(500));
+	}
+
+	@Test
+	void theStreamedPayloadCarriesTheListedPersons() throws IOException {
+		List<PersonDTO> persons = new SyntheticPopulation(5).persons(3_000);
+		PopulationBuilder builder = new PopulationBuilder();
+		try (InputStream body = new SyntheticPopulation(5).jsonStream(3_000)) {
+			assertThat(PersonStreamReader.read(body, builder)).isEqualTo(3_000);
+		}
+
+		Population population = builder.build();
+		PersonCountCube expected = PersonCountCube.of(persons);
+
+		assertThat(population.maxId()).isEqualTo(3_000);
+		for (Country nationality : Country.values()) {
+			for (Color hairColor : Color.values()) {
+				for (Color eyeColor : Color.values()) {
+					assertThat(population.cube().count(nationality, hairColor, eyeColor))
+							.isEqualTo(expected.count(nationality, hairColor, eyeColor));
+				}
+			}
+		}
+		assertThat(population.cube().countByHairColor(null)).isEqualTo(expected.countByHairColor(null));
+		assertThat(population.cube().countByEyeColor(null)).isEqualTo(expected.countByEyeColor(null));
+		assertThat(population.cube().countByNationality(null)).isEqualTo(expected.countByNationality(null));
+	}
+
+	@Test
+	void ordinalsAreInRangeAndNullAtTheConfiguredRatio() {
+		byte[][] none = new SyntheticPopulation(5, 0.0).ordinals(20_000);
+		byte[][] some = new SyntheticPopulation(5, 0.1).ordinals(20_000);
+
+		assertOrdinals(none[0], Color.values().length, 0);
+		assertOrdinals(none[1], Color.values().length, 0);
+		assertOrdinals(none[2], Country.values().length, 0);
+		assertOrdinals(some[0], Color.values().length, 2_000);
+		assertOrdinals(some[1], Color.values().length, 2_000);
+		assertOrdinals(some[2], Country.values().length, 2_000);
+	}
+
+	private static void assertOrdinals(byte[] column, int values, int expectedNulls) {
+		int nulls = 0;
+		for (byte ordinal : column) {
+			assertThat((int) ordinal).isBetween(-1, values - 1);
+			if (ordinal < 0) {
+				nulls++;
+			}
+		}
+		assertThat(nulls).isCloseTo(expectedNulls, within(expectedNulls / 5));
+	}
+}